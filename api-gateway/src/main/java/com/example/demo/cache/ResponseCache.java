@@ -0,0 +1,119 @@
+package com.example.demo.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU cache of GET responses bounded by the total number of body bytes it holds.
+ * Entries are grouped by route (service id) so a write to a service drops everything cached for it.
+ */
+@Component
+public class ResponseCache {
+
+    private final long maxBytes;
+    private final long ttlMillis;
+
+    private final LinkedHashMap<String, CachedResponse> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long usedBytes;
+
+    // Bumped on every invalidation; a response is only stored if its route did not change while it was in flight
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public ResponseCache(@Value("${gateway.response-cache.max-bytes:16777216}") long maxBytes,
+                         @Value("${gateway.response-cache.ttl:60s}") Duration ttl,
+                         MeterRegistry meterRegistry) {
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttl.toMillis();
+
+        FunctionCounter.builder("gateway.response.cache.hits", hits, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("gateway.response.cache.misses", misses, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("gateway.response.cache.invalidations", invalidations, LongAdder::sum).register(meterRegistry);
+        Gauge.builder("gateway.response.cache.bytes", this, ResponseCache::usedBytes).register(meterRegistry);
+    }
+
+    public CachedResponse get(String key) {
+        CachedResponse cached;
+        synchronized (this) {
+            cached = entries.get(key);
+            if (cached != null && System.currentTimeMillis() - cached.storedAt() > ttlMillis) {
+                remove(key);
+                cached = null;
+            }
+        }
+        if (cached != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return cached;
+    }
+
+    public long generation(String route) {
+        return generations.computeIfAbsent(route, r -> new AtomicLong()).get();
+    }
+
+    public void put(String key, CachedResponse response, long generation) {
+        int size = response.body().length;
+        if (size > maxBytes / 4) {
+            return;
+        }
+        synchronized (this) {
+            if (generation(response.route()) != generation) {
+                return;
+            }
+            remove(key);
+            entries.put(key, response);
+            usedBytes += size;
+            Iterator<CachedResponse> eldest = entries.values().iterator();
+            while (usedBytes > maxBytes && eldest.hasNext()) {
+                usedBytes -= eldest.next().body().length;
+                eldest.remove();
+            }
+        }
+    }
+
+    public synchronized void invalidate(String route) {
+        generations.computeIfAbsent(route, r -> new AtomicLong()).incrementAndGet();
+        Iterator<CachedResponse> it = entries.values().iterator();
+        while (it.hasNext()) {
+            CachedResponse cached = it.next();
+            if (cached.route().equals(route)) {
+                usedBytes -= cached.body().length;
+                it.remove();
+            }
+        }
+        invalidations.increment();
+    }
+
+    private void remove(String key) {
+        CachedResponse removed = entries.remove(key);
+        if (removed != null) {
+            usedBytes -= removed.body().length;
+        }
+    }
+
+    private synchronized long usedBytes() {
+        return usedBytes;
+    }
+
+    /** {@code headers} are the upstream ones to replay, ETag included. */
+    public record CachedResponse(String route, int status, HttpHeaders headers, String etag,
+                                 byte[] body, long storedAt) {
+    }
+}
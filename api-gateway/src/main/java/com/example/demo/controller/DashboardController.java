@@ -0,0 +1,101 @@
+package com.example.demo.controller;
+
+import com.example.demo.security.RevocationList;
+import com.example.demo.security.VerifiedTokenCache;
+import com.example.demo.security.VerifiedTokenCache.VerifiedToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.loadbalancer.reactive.LoadBalancedExchangeFilterFunction;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Backend-for-frontend: one call returns everything the dashboard screen needs.
+ * The upstream calls run in parallel; a part that fails or times out is reported
+ * under "errors" and the other parts are still returned.
+ */
+@RestController
+@CrossOrigin(origins = "*")
+public class DashboardController {
+
+    private final WebClient webClient;
+    private final VerifiedTokenCache tokenCache;
+    private final RevocationList revocationList;
+    private final Duration timeout;
+
+    public DashboardController(WebClient.Builder webClientBuilder, LoadBalancedExchangeFilterFunction loadBalancer,
+                               VerifiedTokenCache tokenCache,
+                               RevocationList revocationList,
+                               @Value("${gateway.bff.timeout:3s}") Duration timeout) {
+        // Boot's builder (prototype, with its customizers), resolving service ids through Eureka
+        this.webClient = webClientBuilder.filter(loadBalancer).build();
+        this.tokenCache = tokenCache;
+        this.revocationList = revocationList;
+        this.timeout = timeout;
+    }
+
+    // Not a gateway route, so AuthFilter does not run here: the token is checked the same way
+    @GetMapping("/bff/dashboard")
+    public Mono<Map<String, Object>> dashboard(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authHeader) {
+        VerifiedToken token = verify(authHeader);
+
+        return Mono.zip(
+                part("produits", "http://PRODUIT-SERVICE/produits?unpaged=true", authHeader, token),
+                part("clients", "http://CLIENT-SERVICE/clients?unpaged=true", authHeader, token),
+                part("recentOrders", "http://COMMANDE-SERVICE/commandes/recent", authHeader, token)
+        ).map(parts -> {
+            Map<String, Object> dashboard = new LinkedHashMap<>();
+            Map<String, String> errors = new LinkedHashMap<>();
+            for (Part part : new Part[]{parts.getT1(), parts.getT2(), parts.getT3()}) {
+                dashboard.put(part.name(), part.data());
+                if (part.error() != null) {
+                    errors.put(part.name(), part.error());
+                }
+            }
+            dashboard.put("errors", errors);
+            return dashboard;
+        });
+    }
+
+    private VerifiedToken verify(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+        }
+        VerifiedToken token;
+        try {
+            token = tokenCache.verify(authHeader.substring(7));
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+        }
+        if (revocationList.isRevoked(token)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+        }
+        return token;
+    }
+
+    private Mono<Part> part(String name, String uri, String authHeader, VerifiedToken token) {
+        return webClient.get()
+                .uri(uri)
+                .header(HttpHeaders.AUTHORIZATION, authHeader)
+                .header("X-Auth-User", token.subject())
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .timeout(timeout)
+                .map(data -> new Part(name, data, null))
+                .onErrorResume(e -> Mono.just(new Part(name, null, e.getClass().getSimpleName() + ": " + e.getMessage())));
+    }
+
+    private record Part(String name, JsonNode data, String error) {
+    }
+}
@@ -1,8 +1,8 @@
 package com.example.demo.filter;
 
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
+import com.example.demo.security.RevocationList;
+import com.example.demo.security.VerifiedTokenCache;
+import com.example.demo.security.VerifiedTokenCache.VerifiedToken;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
@@ -12,21 +12,25 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.nio.charset.StandardCharsets;
-import java.util.List;
-
 @Component
 public class AuthFilter implements GlobalFilter, Ordered {
 
-    // Must match the secret in Auth Service
-    private static final String SECRET = "secret12345678901234567890123456789012";
+    public static final String VERIFIED_TOKEN_ATTR = AuthFilter.class.getName() + ".verifiedToken";
+
+    private final VerifiedTokenCache tokenCache;
+    private final RevocationList revocationList;
+
+    public AuthFilter(VerifiedTokenCache tokenCache, RevocationList revocationList) {
+        this.tokenCache = tokenCache;
+        this.revocationList = revocationList;
+    }
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         String path = exchange.getRequest().getURI().getPath();
 
         // Public Endpoints
-        if (path.contains("/auth-service/login") || 
+        if (path.contains("/auth-service/login") || path.contains("/auth-service/refresh") ||
             (path.contains("/auth-service/users") && exchange.getRequest().getMethod().name().equals("POST")) ||
             (path.contains("/auth-service/roles") && exchange.getRequest().getMethod().name().equals("POST"))) {
             return chain.filter(exchange);
@@ -46,29 +50,33 @@ public class AuthFilter implements GlobalFilter, Ordered {
 
         String token = authHeader.substring(7);
 
+        VerifiedToken verified;
         try {
-            // Validate Token
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-            
-            // Optionally add headers to forward user info
-            exchange.getRequest().mutate()
-                    .header("X-Auth-User", claims.getSubject())
-                    .build();
-
+            // Validate Token (signature is only checked the first time we see it)
+            verified = tokenCache.verify(token);
         } catch (Exception e) {
             exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
             return exchange.getResponse().setComplete();
         }
 
-        return chain.filter(exchange);
+        // Logged out or revoked by an admin: the signature is still valid, so check the local revocation list
+        if (revocationList.isRevoked(verified)) {
+            exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+            return exchange.getResponse().setComplete();
+        }
+
+        exchange.getAttributes().put(VERIFIED_TOKEN_ATTR, verified);
+
+        // Forward user info to the downstream service
+        ServerWebExchange mutated = exchange.mutate()
+                .request(r -> r.header("X-Auth-User", verified.subject()))
+                .build();
+
+        return chain.filter(mutated);
     }
 
     @Override
     public int getOrder() {
-        return -1; // High priority
+        return -100; // High priority, ahead of the caching filters
     }
 }
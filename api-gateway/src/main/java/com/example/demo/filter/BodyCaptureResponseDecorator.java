@@ -0,0 +1,47 @@
+package com.example.demo.filter;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+/**
+ * Buffers the upstream body into a byte array and hands it to {@code onBody} before it is written.
+ * Whatever {@code onBody} returns is what the client receives.
+ */
+public class BodyCaptureResponseDecorator extends ServerHttpResponseDecorator {
+
+    private final Function<byte[], byte[]> onBody;
+
+    public BodyCaptureResponseDecorator(ServerHttpResponse delegate, Function<byte[], byte[]> onBody) {
+        super(delegate);
+        this.onBody = onBody;
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+        return DataBufferUtils.join(Flux.from(body))
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .defaultIfEmpty(new byte[0])
+                .flatMap(bytes -> {
+                    byte[] out = onBody.apply(bytes);
+                    getDelegate().getHeaders().setContentLength(out.length);
+                    return super.writeWith(Mono.just(bufferFactory().wrap(out)));
+                });
+    }
+
+    @Override
+    public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+        return writeWith(Flux.from(body).flatMapSequential(p -> p));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.demo.filter;
+
+import com.example.demo.metrics.RouteLatencyRecorder;
+import com.example.demo.metrics.RouteLatencyRecorder.SlowRequest;
+import com.example.demo.security.VerifiedTokenCache.VerifiedToken;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Times every routed request, including the ones answered by the gateway itself (401, 429, cache hits).
+ */
+@Component
+public class LatencyRecordingFilter implements GlobalFilter, Ordered {
+
+    private final RouteLatencyRecorder recorder;
+
+    public LatencyRecordingFilter(RouteLatencyRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> record(exchange, System.nanoTime() - start));
+    }
+
+    private void record(ServerWebExchange exchange, long durationNanos) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        int statusCode = status != null ? status.value() : 0;
+        String routeId = route != null ? route.getId() : "unknown";
+        recorder.record(routeId, statusCode, durationNanos);
+
+        if (recorder.isSlow(durationNanos)) {
+            VerifiedToken token = exchange.getAttribute(AuthFilter.VERIFIED_TOKEN_ATTR);
+            URI upstream = exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR);
+            recorder.recordSlow(new SlowRequest(
+                    System.currentTimeMillis(),
+                    token != null ? token.subject() : null,
+                    exchange.getRequest().getMethod().name(),
+                    exchange.getRequest().getURI().getRawPath(),
+                    statusCode,
+                    upstream != null ? upstream.getHost() + ":" + upstream.getPort() : null,
+                    durationNanos / 1_000_000d));
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        // Outermost of our filters, so rejections and cache hits are timed too
+        return -200;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.filter;
+
+import com.example.demo.ratelimit.RateLimitProperties;
+import com.example.demo.ratelimit.TokenBucketRateLimiter;
+import com.example.demo.security.VerifiedTokenCache.VerifiedToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Limits each user per route; answers 429 with Retry-After once the bucket is empty.
+ * Requests without a token (login, registration) are keyed on the client address instead.
+ */
+@Component
+public class RateLimitFilter implements GlobalFilter, Ordered {
+
+    private final TokenBucketRateLimiter rateLimiter;
+    private final RateLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public RateLimitFilter(TokenBucketRateLimiter rateLimiter, RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.rateLimiter = rateLimiter;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!properties.isEnabled()) {
+            return chain.filter(exchange);
+        }
+
+        String route = Routes.serviceOf(exchange.getRequest().getURI().getPath());
+        long waitNanos = rateLimiter.tryAcquire(route, userOf(exchange));
+        if (waitNanos == 0) {
+            return chain.filter(exchange);
+        }
+
+        meterRegistry.counter("gateway.ratelimit.rejected", "route", route).increment();
+        long retryAfterSeconds = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+        exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        return exchange.getResponse().setComplete();
+    }
+
+    private static String userOf(ServerWebExchange exchange) {
+        VerifiedToken token = exchange.getAttribute(AuthFilter.VERIFIED_TOKEN_ATTR);
+        if (token != null && token.subject() != null) {
+            return token.subject();
+        }
+        InetSocketAddress remote = exchange.getRequest().getRemoteAddress();
+        return remote != null && remote.getAddress() != null ? "ip:" + remote.getAddress().getHostAddress() : "anonymous";
+    }
+
+    @Override
+    public int getOrder() {
+        // Right after AuthFilter, before anything is cached or forwarded
+        return -90;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.demo.filter;
+
+import com.example.demo.security.VerifiedTokenCache.VerifiedToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-flight for GETs: while a request for the same route, query and user is on its way upstream,
+ * identical requests wait for it and are answered with a copy of its buffered response.
+ */
+@Component
+public class RequestCoalescingFilter implements GlobalFilter, Ordered {
+
+    private final List<PathPattern> coalescedPaths;
+    private final Map<String, Sinks.One<SharedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter upstreamCalls;
+    private final Counter collapsedCalls;
+
+    public RequestCoalescingFilter(@Value("${gateway.coalescing.paths}") List<String> paths, MeterRegistry meterRegistry) {
+        this.coalescedPaths = paths.stream().map(PathPatternParser.defaultInstance::parse).toList();
+        this.upstreamCalls = meterRegistry.counter("gateway.coalescing.upstream");
+        this.collapsedCalls = meterRegistry.counter("gateway.coalescing.collapsed");
+        Gauge.builder("gateway.coalescing.inflight", inFlight, Map::size).register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!HttpMethod.GET.equals(request.getMethod()) || !isCoalesced(request.getURI().getPath())) {
+            return chain.filter(exchange);
+        }
+
+        VerifiedToken token = exchange.getAttribute(AuthFilter.VERIFIED_TOKEN_ATTR);
+        String key = request.getURI().getRawPath() + "?" + request.getURI().getRawQuery()
+                + "|" + (token != null ? token.subject() : "anonymous");
+
+        Sinks.One<SharedResponse> sink = Sinks.one();
+        Sinks.One<SharedResponse> leader = inFlight.putIfAbsent(key, sink);
+        if (leader != null) {
+            collapsedCalls.increment();
+            // If the leading request fails without a response, go upstream on our own
+            return leader.asMono()
+                    .flatMap(shared -> write(exchange.getResponse(), shared))
+                    .switchIfEmpty(Mono.defer(() -> chain.filter(exchange)));
+        }
+
+        upstreamCalls.increment();
+        ServerHttpResponse response = exchange.getResponse();
+        BodyCaptureResponseDecorator decorator = new BodyCaptureResponseDecorator(response, body -> {
+            inFlight.remove(key, sink);
+            sink.tryEmitValue(new SharedResponse(response.getStatusCode(), ResponseHeaders.replayable(response.getHeaders()), body));
+            return body;
+        });
+        return chain.filter(exchange.mutate().response(decorator).build())
+                .doFinally(signal -> {
+                    inFlight.remove(key, sink);
+                    sink.tryEmitEmpty();
+                });
+    }
+
+    private boolean isCoalesced(String path) {
+        PathContainer container = PathContainer.parsePath(path);
+        for (PathPattern pattern : coalescedPaths) {
+            if (pattern.matches(container)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Mono<Void> write(ServerHttpResponse response, SharedResponse shared) {
+        response.setStatusCode(shared.status());
+        response.getHeaders().putAll(shared.headers());
+        response.getHeaders().setContentLength(shared.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(shared.body())));
+    }
+
+    @Override
+    public int getOrder() {
+        // Inside the response cache, so only cache misses are coalesced
+        return -70;
+    }
+
+    private record SharedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.demo.filter;
+
+import com.example.demo.cache.ResponseCache;
+import com.example.demo.cache.ResponseCache.CachedResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Serves cached catalog reads with an ETag, answers If-None-Match with 304,
+ * and drops a route's cached entries whenever a write goes through the gateway to it.
+ */
+@Component
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+
+    private final ResponseCache cache;
+    private final List<PathPattern> cacheablePaths;
+
+    public ResponseCacheFilter(ResponseCache cache,
+                               @Value("${gateway.response-cache.paths:/produit-service/produits,/produit-service/produits/{id:\\d+}}") List<String> paths) {
+        this.cache = cache;
+        this.cacheablePaths = paths.stream().map(PathPatternParser.defaultInstance::parse).toList();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getURI().getPath();
+        String route = Routes.serviceOf(path);
+        HttpMethod method = request.getMethod();
+
+        if (HttpMethod.POST.equals(method) || HttpMethod.PUT.equals(method)
+                || HttpMethod.DELETE.equals(method) || HttpMethod.PATCH.equals(method)) {
+            // Invalidate before and after, so reads racing with the write are not kept either
+            cache.invalidate(route);
+            return chain.filter(exchange).doFinally(signal -> cache.invalidate(route));
+        }
+
+        if (!HttpMethod.GET.equals(method) || !isCacheable(path)) {
+            return chain.filter(exchange);
+        }
+
+        String key = route + " " + request.getURI().getRawPath() + "?" + request.getURI().getRawQuery();
+        boolean noCache = request.getHeaders().getCacheControl() != null
+                && request.getHeaders().getCacheControl().contains("no-cache");
+
+        CachedResponse cached = noCache ? null : cache.get(key);
+        if (cached != null) {
+            return writeCached(exchange, cached);
+        }
+
+        long generation = cache.generation(route);
+        ServerHttpResponse response = exchange.getResponse();
+        BodyCaptureResponseDecorator decorator = new BodyCaptureResponseDecorator(response, body -> {
+            HttpStatusCode status = response.getStatusCode();
+            if (status == null || status.value() != HttpStatus.OK.value()
+                    || response.getHeaders().containsKey(HttpHeaders.SET_COOKIE)) {
+                return body;
+            }
+            String etag = etag(body);
+            response.getHeaders().setETag(etag);
+            cache.put(key, new CachedResponse(route, status.value(), ResponseHeaders.replayable(response.getHeaders()),
+                    etag, body, System.currentTimeMillis()), generation);
+            if (matches(request, etag)) {
+                response.setStatusCode(HttpStatus.NOT_MODIFIED);
+                return new byte[0];
+            }
+            return body;
+        });
+        return chain.filter(exchange.mutate().response(decorator).build());
+    }
+
+    private boolean isCacheable(String path) {
+        PathContainer container = PathContainer.parsePath(path);
+        for (PathPattern pattern : cacheablePaths) {
+            if (pattern.matches(container)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Mono<Void> writeCached(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        // Everything upstream sent (paging cursor, catalog and change feed versions...), the ETag included
+        response.getHeaders().putAll(cached.headers());
+        response.getHeaders().set("X-Cache", "HIT");
+        if (matches(exchange.getRequest(), cached.etag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatusCode.valueOf(cached.status()));
+        response.getHeaders().setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private static boolean matches(ServerHttpRequest request, String etag) {
+        List<String> ifNoneMatch = request.getHeaders().getIfNoneMatch();
+        return ifNoneMatch.contains(etag) || ifNoneMatch.contains("*");
+    }
+
+    private static String etag(byte[] body) {
+        return "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+    }
+
+    @Override
+    public int getOrder() {
+        // After AuthFilter, and before NettyWriteResponseFilter so the body can be captured
+        return -80;
+    }
+}
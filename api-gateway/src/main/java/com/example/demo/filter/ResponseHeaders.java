@@ -0,0 +1,38 @@
+package com.example.demo.filter;
+
+import org.springframework.http.HttpHeaders;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Upstream response headers that can be replayed to another client: the end-to-end ones, without
+ * Set-Cookie (it belongs to the client that caused it) nor Content-Length (set from the body written).
+ */
+public final class ResponseHeaders {
+
+    private static final Set<String> NOT_REPLAYED = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        // Hop-by-hop (RFC 7230 section 6.1)
+        NOT_REPLAYED.addAll(List.of(HttpHeaders.CONNECTION, "Keep-Alive", HttpHeaders.PROXY_AUTHENTICATE,
+                HttpHeaders.PROXY_AUTHORIZATION, HttpHeaders.TE, HttpHeaders.TRAILER, HttpHeaders.TRANSFER_ENCODING,
+                HttpHeaders.UPGRADE));
+        NOT_REPLAYED.add(HttpHeaders.CONTENT_LENGTH);
+        NOT_REPLAYED.add(HttpHeaders.SET_COOKIE);
+    }
+
+    private ResponseHeaders() {
+    }
+
+    public static HttpHeaders replayable(HttpHeaders headers) {
+        HttpHeaders copy = new HttpHeaders();
+        headers.forEach((name, values) -> {
+            if (!NOT_REPLAYED.contains(name)) {
+                copy.put(name, List.copyOf(values));
+            }
+        });
+        return HttpHeaders.readOnlyHttpHeaders(copy);
+    }
+}
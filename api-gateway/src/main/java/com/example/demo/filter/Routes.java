@@ -0,0 +1,16 @@
+package com.example.demo.filter;
+
+/**
+ * Routes come from the discovery locator, so the first path segment is the (lower-case) service id.
+ */
+public final class Routes {
+
+    private Routes() {
+    }
+
+    public static String serviceOf(String path) {
+        int start = path.startsWith("/") ? 1 : 0;
+        int end = path.indexOf('/', start);
+        return end < 0 ? path.substring(start) : path.substring(start, end);
+    }
+}
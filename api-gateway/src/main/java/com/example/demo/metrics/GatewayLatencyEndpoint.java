@@ -0,0 +1,31 @@
+package com.example.demo.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * /actuator/gatewaylatency: p50/p90/p99/p999 per route and status class (milliseconds),
+ * and the slowest of the recently recorded slow requests.
+ */
+@Component
+@Endpoint(id = "gatewaylatency")
+public class GatewayLatencyEndpoint {
+
+    private final RouteLatencyRecorder recorder;
+
+    public GatewayLatencyEndpoint(RouteLatencyRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @ReadOperation
+    public Map<String, Object> latency() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("routes", recorder.percentiles());
+        result.put("slowest", recorder.slowest());
+        return result;
+    }
+}
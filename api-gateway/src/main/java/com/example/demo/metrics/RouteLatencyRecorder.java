@@ -0,0 +1,121 @@
+package com.example.demo.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Latency distributions per route and status class, plus a ring buffer of recent slow requests.
+ * Recording is wait-free and does not allocate (HdrHistogram {@link Recorder}); the cost of merging
+ * interval histograms is paid by whoever reads the endpoint.
+ */
+@Component
+public class RouteLatencyRecorder {
+
+    private static final String[] STATUS_CLASSES = {"other", "1xx", "2xx", "3xx", "4xx", "5xx"};
+    private static final long MAX_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final Map<String, RouteHistograms> routes = new ConcurrentHashMap<>();
+    private final long slowThresholdNanos;
+
+    private final AtomicReferenceArray<SlowRequest> slowRequests;
+    private final AtomicLong slowCursor = new AtomicLong();
+
+    public RouteLatencyRecorder(@Value("${gateway.latency.slow-threshold:500ms}") Duration slowThreshold,
+                                @Value("${gateway.latency.slow-log-size:200}") int slowLogSize) {
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.slowRequests = new AtomicReferenceArray<>(slowLogSize);
+    }
+
+    public void record(String routeId, int status, long durationNanos) {
+        RouteHistograms histograms = routes.get(routeId);
+        if (histograms == null) {
+            histograms = routes.computeIfAbsent(routeId, id -> new RouteHistograms());
+        }
+        int statusClass = status >= 100 && status < 600 ? status / 100 : 0;
+        histograms.byStatusClass[statusClass].recordValue(Math.min(durationNanos / 1000, MAX_TRACKABLE_MICROS));
+    }
+
+    public boolean isSlow(long durationNanos) {
+        return durationNanos >= slowThresholdNanos;
+    }
+
+    public void recordSlow(SlowRequest request) {
+        int slot = (int) (slowCursor.getAndIncrement() % slowRequests.length());
+        slowRequests.set(slot, request);
+    }
+
+    public Map<String, Map<String, Map<String, Object>>> percentiles() {
+        Map<String, Map<String, Map<String, Object>>> result = new TreeMap<>();
+        routes.forEach((routeId, histograms) -> {
+            Map<String, Map<String, Object>> byStatus = new LinkedHashMap<>();
+            for (int i = 0; i < STATUS_CLASSES.length; i++) {
+                Histogram histogram = histograms.snapshot(i);
+                if (histogram.getTotalCount() > 0) {
+                    byStatus.put(STATUS_CLASSES[i], summary(histogram));
+                }
+            }
+            result.put(routeId, byStatus);
+        });
+        return result;
+    }
+
+    public List<SlowRequest> slowest() {
+        List<SlowRequest> recent = new ArrayList<>(slowRequests.length());
+        for (int i = 0; i < slowRequests.length(); i++) {
+            SlowRequest request = slowRequests.get(i);
+            if (request != null) {
+                recent.add(request);
+            }
+        }
+        recent.sort(Comparator.comparingDouble(SlowRequest::durationMillis).reversed());
+        return recent;
+    }
+
+    private static Map<String, Object> summary(Histogram histogram) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getTotalCount());
+        summary.put("mean", histogram.getMean() / 1000);
+        summary.put("p50", histogram.getValueAtPercentile(50) / 1000d);
+        summary.put("p90", histogram.getValueAtPercentile(90) / 1000d);
+        summary.put("p99", histogram.getValueAtPercentile(99) / 1000d);
+        summary.put("p999", histogram.getValueAtPercentile(99.9) / 1000d);
+        summary.put("max", histogram.getMaxValue() / 1000d);
+        return summary;
+    }
+
+    private static class RouteHistograms {
+        final Recorder[] byStatusClass = new Recorder[STATUS_CLASSES.length];
+        final Histogram[] totals = new Histogram[STATUS_CLASSES.length];
+
+        RouteHistograms() {
+            for (int i = 0; i < STATUS_CLASSES.length; i++) {
+                byStatusClass[i] = new Recorder(MAX_TRACKABLE_MICROS, 3);
+                totals[i] = new Histogram(MAX_TRACKABLE_MICROS, 3);
+            }
+        }
+
+        synchronized Histogram snapshot(int statusClass) {
+            totals[statusClass].add(byStatusClass[statusClass].getIntervalHistogram());
+            return totals[statusClass].copy();
+        }
+    }
+
+    /** Durations are in milliseconds. */
+    public record SlowRequest(long timestamp, String user, String method, String path, int status,
+                              String upstream, double durationMillis) {
+    }
+}
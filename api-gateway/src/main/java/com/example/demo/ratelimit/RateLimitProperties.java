@@ -0,0 +1,83 @@
+package com.example.demo.ratelimit;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public class RateLimitProperties implements InitializingBean {
+
+    private boolean enabled = true;
+
+    /** Applied to every route without its own entry in {@link #routes}. */
+    private Limit defaults = new Limit(50, 100);
+
+    /**
+     * Per route (service id) limits, e.g. gateway.rate-limit.routes.commande-service.replenish-rate=10;
+     * a value not set for the route is taken from {@link #defaults}.
+     */
+    private Map<String, Limit> routes = new HashMap<>();
+
+    /** Buckets untouched for this long are full again and can be dropped. */
+    private Duration idleTimeout = Duration.ofMinutes(5);
+
+    public Limit limitFor(String route) {
+        return routes.getOrDefault(route, defaults);
+    }
+
+    // Fails the startup rather than a request: a rate of 0 would divide by zero, a burst of 0 admit nothing
+    @Override
+    public void afterPropertiesSet() {
+        check("defaults", defaults);
+        routes.forEach((route, limit) -> {
+            if (limit.replenishRate == null) {
+                limit.replenishRate = defaults.replenishRate;
+            }
+            if (limit.burstCapacity == null) {
+                limit.burstCapacity = defaults.burstCapacity;
+            }
+            check("routes." + route, limit);
+        });
+    }
+
+    private static void check(String name, Limit limit) {
+        if (limit.replenishRate == null || limit.replenishRate <= 0) {
+            throw new IllegalStateException("gateway.rate-limit." + name + ".replenish-rate must be > 0");
+        }
+        if (limit.burstCapacity == null || limit.burstCapacity <= 0) {
+            throw new IllegalStateException("gateway.rate-limit." + name + ".burst-capacity must be > 0");
+        }
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public Limit getDefaults() { return defaults; }
+    public void setDefaults(Limit defaults) { this.defaults = defaults; }
+    public Map<String, Limit> getRoutes() { return routes; }
+    public void setRoutes(Map<String, Limit> routes) { this.routes = routes; }
+    public Duration getIdleTimeout() { return idleTimeout; }
+    public void setIdleTimeout(Duration idleTimeout) { this.idleTimeout = idleTimeout; }
+
+    public static class Limit {
+        /** Requests per second. */
+        private Double replenishRate;
+        /** Requests that may be sent at once after being idle. */
+        private Integer burstCapacity;
+
+        public Limit() {
+        }
+
+        public Limit(double replenishRate, int burstCapacity) {
+            this.replenishRate = replenishRate;
+            this.burstCapacity = burstCapacity;
+        }
+
+        public Double getReplenishRate() { return replenishRate; }
+        public void setReplenishRate(Double replenishRate) { this.replenishRate = replenishRate; }
+        public Integer getBurstCapacity() { return burstCapacity; }
+        public void setBurstCapacity(Integer burstCapacity) { this.burstCapacity = burstCapacity; }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.demo.ratelimit;
+
+import com.example.demo.ratelimit.RateLimitProperties.Limit;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process token buckets, one per (route, user).
+ * Each bucket is a single "theoretical arrival time" updated with CAS (GCRA), which behaves
+ * like a token bucket refilled at {@code replenishRate} up to {@code burstCapacity}, without locks.
+ */
+@Component
+public class TokenBucketRateLimiter {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final RateLimitProperties properties;
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final long origin = System.nanoTime();
+
+    public TokenBucketRateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        Gauge.builder("gateway.ratelimit.buckets", buckets, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * @return 0 when the request may go through, otherwise the number of nanoseconds to wait
+     */
+    public long tryAcquire(String route, String user) {
+        Limit limit = properties.limitFor(route);
+        long interval = (long) (NANOS_PER_SECOND / limit.getReplenishRate());
+        long burst = interval * limit.getBurstCapacity();
+
+        AtomicLong tat = buckets.computeIfAbsent(route + '|' + user, k -> new AtomicLong());
+        while (true) {
+            long now = now();
+            long current = tat.get();
+            long next = Math.max(current, now) + interval;
+            long allowAt = next - burst;
+            if (allowAt > now) {
+                return allowAt - now;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${gateway.rate-limit.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        long idleBefore = now() - properties.getIdleTimeout().toNanos();
+        buckets.values().removeIf(tat -> tat.get() < idleBefore);
+    }
+
+    private long now() {
+        return System.nanoTime() - origin;
+    }
+}
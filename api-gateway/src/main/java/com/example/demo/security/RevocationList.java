@@ -0,0 +1,170 @@
+package com.example.demo.security;
+
+import com.example.demo.security.VerifiedTokenCache.VerifiedToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.loadbalancer.reactive.LoadBalancedExchangeFilterFunction;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local copy of the auth-service revocation feed, kept in sync by polling {@code /revocations?since=}.
+ * The hot path only touches a Bloom filter of revoked token ids; the exact map is consulted on a
+ * (rare) filter hit, so checking a valid token costs a few hash probes and no allocation.
+ * <p>
+ * Feed positions are IDENTITY ids, which are handed out at insert but become visible at commit: an
+ * entry can show up after one with a higher id has been read. Every poll therefore starts
+ * {@code gateway.revocation.overlap} ids before the last position seen; applying an entry twice is harmless.
+ */
+@Component
+public class RevocationList {
+
+    private static final Logger log = LoggerFactory.getLogger(RevocationList.class);
+
+    private final WebClient webClient;
+    private final String feedToken;
+    private final int pageSize;
+    private final int overlap;
+    private final Duration timeout;
+    private final double falsePositiveRate;
+
+    // jti -> expiry of the revoked token (ms)
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final Map<String, UserRevocation> revokedUsers = new ConcurrentHashMap<>();
+    private volatile BloomFilter tokenFilter;
+
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong lastSync = new AtomicLong();
+    private final LongAdder rejected = new LongAdder();
+
+    public RevocationList(WebClient.Builder webClientBuilder, LoadBalancedExchangeFilterFunction loadBalancer,
+                          @Value("${gateway.revocation.page-size:1000}") int pageSize,
+                          @Value("${gateway.revocation.overlap:200}") int overlap,
+                          @Value("${gateway.revocation.timeout:2s}") Duration timeout,
+                          @Value("${gateway.revocation.feed-token:}") String feedToken,
+                          @Value("${gateway.revocation.bloom.expected-insertions:10000}") int expectedInsertions,
+                          @Value("${gateway.revocation.bloom.false-positive-rate:0.001}") double falsePositiveRate,
+                          MeterRegistry meterRegistry) {
+        // Boot's builder (prototype, with its customizers), resolving http://AUTH-SERVICE through Eureka
+        this.webClient = webClientBuilder.filter(loadBalancer).build();
+        this.feedToken = feedToken;
+        this.pageSize = pageSize;
+        // Less than a page, so that a page of entries already seen still moves the position forward
+        this.overlap = Math.max(0, Math.min(overlap, pageSize / 2));
+        this.timeout = timeout;
+        this.falsePositiveRate = falsePositiveRate;
+        this.tokenFilter = new BloomFilter(expectedInsertions, falsePositiveRate);
+
+        Gauge.builder("gateway.revocation.tokens", revokedTokens, Map::size).register(meterRegistry);
+        Gauge.builder("gateway.revocation.users", revokedUsers, Map::size).register(meterRegistry);
+        Gauge.builder("gateway.revocation.version", version, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("gateway.revocation.staleness.seconds", lastSync,
+                t -> t.get() == 0 ? Double.NaN : (System.currentTimeMillis() - t.get()) / 1000d).register(meterRegistry);
+        FunctionCounter.builder("gateway.revocation.rejected", rejected, LongAdder::sum).register(meterRegistry);
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        if (token.id() != null && tokenFilter.mightContain(token.id()) && revokedTokens.containsKey(token.id())) {
+            rejected.increment();
+            return true;
+        }
+        if (!revokedUsers.isEmpty()) {
+            UserRevocation revocation = revokedUsers.get(token.subject());
+            if (revocation != null && token.issuedAt() < revocation.issuedBefore()) {
+                rejected.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Runs on the scheduler thread, never on an event loop, so blocking on the response is fine here
+    @Scheduled(fixedDelayString = "${gateway.revocation.poll-interval-ms:5000}")
+    public void poll() {
+        try {
+            int received;
+            // Entries committed late, below the current position, are picked up by the overlap
+            long since = Math.max(0, version.get() - overlap);
+            do {
+                JsonNode feed = webClient.get()
+                        .uri("http://AUTH-SERVICE/revocations?since={since}&limit={limit}", since, pageSize)
+                        .header("X-Service-Token", feedToken)
+                        .retrieve()
+                        .bodyToMono(JsonNode.class)
+                        .block(timeout);
+                if (feed == null) {
+                    return;
+                }
+                received = apply(feed);
+                since = version.get();
+            } while (received >= pageSize);
+            lastSync.set(System.currentTimeMillis());
+        } catch (Exception e) {
+            // Keep serving with what we have; the next poll resumes from the same version
+            log.warn("Could not sync revocations from auth-service: {}", e.getMessage());
+        }
+        prune();
+    }
+
+    private int apply(JsonNode feed) {
+        JsonNode entries = feed.path("entries");
+        BloomFilter filter = tokenFilter;
+        for (JsonNode entry : entries) {
+            String target = entry.path("target").asText(null);
+            if (target == null) {
+                continue;
+            }
+            if ("USER".equals(entry.path("type").asText())) {
+                // iat is in whole seconds: a token from the revocation's own second is kept rather than
+                // rejecting a user who logs in again right after it
+                UserRevocation revocation = new UserRevocation(epochMillis(entry.path("issuedBefore")) / 1000 * 1000,
+                        epochMillis(entry.path("expiresAt")));
+                revokedUsers.merge(target, revocation, (a, b) -> a.issuedBefore() >= b.issuedBefore() ? a : b);
+            } else {
+                revokedTokens.put(target, epochMillis(entry.path("expiresAt")));
+                filter.put(target);
+            }
+        }
+        version.set(Math.max(version.get(), feed.path("version").asLong(version.get())));
+        return entries.size();
+    }
+
+    // Drops entries whose tokens have expired anyway; the filter is rebuilt when it holds stale ids or is overfull
+    private void prune() {
+        long now = System.currentTimeMillis();
+        boolean removed = revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        revokedUsers.values().removeIf(revocation -> revocation.expiresAt() <= now);
+
+        BloomFilter filter = tokenFilter;
+        if (removed || revokedTokens.size() > filter.expectedInsertions()) {
+            BloomFilter rebuilt = new BloomFilter(Math.max(filter.expectedInsertions(), revokedTokens.size() * 2),
+                    falsePositiveRate);
+            revokedTokens.keySet().forEach(rebuilt::put);
+            tokenFilter = rebuilt;
+        }
+    }
+
+    private static long epochMillis(JsonNode value) {
+        if (value.isNumber()) {
+            return (long) (value.asDouble() * 1000);
+        }
+        return value.isTextual() ? Instant.parse(value.asText()).toEpochMilli() : 0;
+    }
+
+    /** Tokens of the user issued before {@code issuedBefore} (a whole second) are revoked; all of them are expired after {@code expiresAt}. */
+    private record UserRevocation(long issuedBefore, long expiresAt) {
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.demo.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the result of a successful JWT verification until the token's own expiry,
+ * so repeated requests with the same token skip the HMAC check and claims parsing.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    // Must match the secret in Auth Service
+    private static final String SECRET = "secret12345678901234567890123456789012";
+
+    private final JwtParser parser;
+    private final int maxSize;
+    private final Map<String, VerifiedToken> tokens = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public VerifiedTokenCache(@Value("${gateway.auth.token-cache.max-size:10000}") int maxSize,
+                              MeterRegistry meterRegistry) {
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.maxSize = maxSize;
+
+        FunctionCounter.builder("gateway.auth.token.cache.hits", hits, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("gateway.auth.token.cache.misses", misses, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("gateway.auth.token.cache.evictions", evictions, LongAdder::sum).register(meterRegistry);
+        Gauge.builder("gateway.auth.token.cache.size", tokens, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Returns the verified token, parsing and checking the signature only on a cache miss.
+     * Throws the jjwt exception when the token is invalid or expired.
+     */
+    public VerifiedToken verify(String token) {
+        String digest = digest(token);
+        long now = System.currentTimeMillis();
+
+        VerifiedToken cached = tokens.get(digest);
+        if (cached != null) {
+            if (cached.expiresAt() > now) {
+                hits.increment();
+                return cached;
+            }
+            if (tokens.remove(digest, cached)) {
+                evictions.increment();
+            }
+        }
+
+        misses.increment();
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        VerifiedToken verified = VerifiedToken.from(claims);
+        if (verified.expiresAt() != Long.MAX_VALUE) {
+            if (tokens.size() >= maxSize) {
+                evict(now);
+            }
+            tokens.put(digest, verified);
+        }
+        return verified;
+    }
+
+    // Only past maxSize: drop the expired tokens, then the ones expiring first down to 90% of the limit,
+    // so a cache full of live tokens is scanned once per batch rather than on every miss
+    private void evict(long now) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<Map.Entry<String, VerifiedToken>> live = new ArrayList<>(tokens.size());
+            for (Map.Entry<String, VerifiedToken> e : tokens.entrySet()) {
+                if (e.getValue().expiresAt() <= now) {
+                    if (tokens.remove(e.getKey(), e.getValue())) {
+                        evictions.increment();
+                    }
+                } else {
+                    live.add(e);
+                }
+            }
+            int excess = tokens.size() - maxSize * 9 / 10;
+            if (excess > 0) {
+                live.sort(Comparator.comparingLong(e -> e.getValue().expiresAt()));
+                for (int i = 0; i < excess && i < live.size(); i++) {
+                    if (tokens.remove(live.get(i).getKey(), live.get(i).getValue())) {
+                        evictions.increment();
+                    }
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record VerifiedToken(String id, String subject, List<String> roles, long issuedAt, long expiresAt) {
+
+        @SuppressWarnings("unchecked")
+        static VerifiedToken from(Claims claims) {
+            Date issuedAt = claims.getIssuedAt();
+            Date expiration = claims.getExpiration();
+            List<String> roles = claims.get("roles", List.class);
+            return new VerifiedToken(
+                    claims.getId(),
+                    claims.getSubject(),
+                    roles != null ? List.copyOf(roles) : List.of(),
+                    issuedAt != null ? issuedAt.getTime() : 0,
+                    expiration != null ? expiration.getTime() : Long.MAX_VALUE);
+        }
+    }
+}
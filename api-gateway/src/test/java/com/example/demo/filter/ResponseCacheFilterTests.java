@@ -0,0 +1,103 @@
+package com.example.demo.filter;
+
+import com.example.demo.cache.ResponseCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.MultiValueMap;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ResponseCacheFilterTests {
+
+	private final ResponseCacheFilter filter = new ResponseCacheFilter(
+			new ResponseCache(1 << 20, Duration.ofMinutes(1), new SimpleMeterRegistry()),
+			List.of("/produit-service/produits"));
+	private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+	// produit-service: products 1 to 5, pages of 2, X-Next-Cursor while there is more
+	private final GatewayFilterChain upstream = exchange -> {
+		upstreamCalls.incrementAndGet();
+		MultiValueMap<String, String> query = exchange.getRequest().getQueryParams();
+		long after = query.containsKey("after") ? Long.parseLong(query.getFirst("after")) : 0;
+		List<Long> page = LongStream.rangeClosed(after + 1, Math.min(after + 2, 5)).boxed().toList();
+
+		ServerHttpResponse response = exchange.getResponse();
+		response.setStatusCode(HttpStatus.OK);
+		response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+		response.getHeaders().set("X-Catalog-Version", "7");
+		response.getHeaders().set("X-Change-Epoch", "epoch-1");
+		response.getHeaders().set("X-Change-Version", "42");
+		if (page.size() == 2) {
+			response.getHeaders().set("X-Next-Cursor", Long.toString(page.get(1)));
+		}
+		String body = page.stream().map(id -> "{\"id\":" + id + "}").collect(Collectors.joining(",", "[", "]"));
+		return response.writeWith(Mono.just(response.bufferFactory().wrap(body.getBytes(StandardCharsets.UTF_8))));
+	};
+
+	private MockServerHttpResponse get(String cursor) {
+		String uri = "/produit-service/produits?limit=2" + (cursor != null ? "&after=" + cursor : "");
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(uri));
+		filter.filter(exchange, upstream).block(Duration.ofSeconds(5));
+		return exchange.getResponse();
+	}
+
+	// Follows X-Next-Cursor to the end; returns the bodies of the pages
+	private List<String> pageThrough() {
+		List<String> pages = new ArrayList<>();
+		String cursor = null;
+		do {
+			MockServerHttpResponse response = get(cursor);
+			assertEquals(HttpStatus.OK, response.getStatusCode());
+			assertEquals("7", response.getHeaders().getFirst("X-Catalog-Version"));
+			assertEquals("epoch-1", response.getHeaders().getFirst("X-Change-Epoch"));
+			assertEquals("42", response.getHeaders().getFirst("X-Change-Version"));
+			assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+			pages.add(response.getBodyAsString().block(Duration.ofSeconds(5)));
+			cursor = response.getHeaders().getFirst("X-Next-Cursor");
+		} while (cursor != null);
+		return pages;
+	}
+
+	@Test
+	void cachedPagesKeepTheirPagingAndVersionHeaders() {
+		List<String> expected = List.of("[{\"id\":1},{\"id\":2}]", "[{\"id\":3},{\"id\":4}]", "[{\"id\":5}]");
+		assertEquals(expected, pageThrough());
+		assertEquals(3, upstreamCalls.get());
+
+		// Warm cache: same pages, same headers, upstream not called again
+		assertEquals(expected, pageThrough());
+		assertEquals(3, upstreamCalls.get());
+	}
+
+	@Test
+	void hitsDoNotReplayHopByHopHeaders() {
+		GatewayFilterChain withConnection = exchange -> {
+			exchange.getResponse().getHeaders().set("Connection", "keep-alive");
+			return upstream.filter(exchange);
+		};
+		MockServerWebExchange first = MockServerWebExchange.from(MockServerHttpRequest.get("/produit-service/produits?limit=2"));
+		filter.filter(first, withConnection).block(Duration.ofSeconds(5));
+
+		MockServerHttpResponse hit = get(null);
+		assertEquals("HIT", hit.getHeaders().getFirst("X-Cache"));
+		assertEquals("2", hit.getHeaders().getFirst("X-Next-Cursor"));
+		assertNull(hit.getHeaders().getFirst("Connection"));
+	}
+}
@@ -0,0 +1,33 @@
+package com.example.demo.ratelimit;
+
+import com.example.demo.ratelimit.RateLimitProperties.Limit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RateLimitPropertiesTests {
+
+	@Test
+	void routeTakesUnsetValuesFromDefaults() {
+		RateLimitProperties properties = new RateLimitProperties();
+		Limit limit = new Limit();
+		limit.setReplenishRate(10.0);
+		properties.getRoutes().put("commande-service", limit);
+		properties.afterPropertiesSet();
+
+		assertEquals(10.0, properties.limitFor("commande-service").getReplenishRate());
+		assertEquals(100, properties.limitFor("commande-service").getBurstCapacity());
+	}
+
+	@Test
+	void rejectsZeroRateOrBurst() {
+		RateLimitProperties zeroRate = new RateLimitProperties();
+		zeroRate.getRoutes().put("agent-ia-service", new Limit(0, 3));
+		assertThrows(IllegalStateException.class, zeroRate::afterPropertiesSet);
+
+		RateLimitProperties zeroBurst = new RateLimitProperties();
+		zeroBurst.getDefaults().setBurstCapacity(0);
+		assertThrows(IllegalStateException.class, zeroBurst::afterPropertiesSet);
+	}
+}
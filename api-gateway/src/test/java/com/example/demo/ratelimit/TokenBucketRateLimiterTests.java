@@ -0,0 +1,52 @@
+package com.example.demo.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketRateLimiterTests {
+
+	private TokenBucketRateLimiter limiter(double rate, int burst) {
+		RateLimitProperties properties = new RateLimitProperties();
+		properties.getRoutes().put("commande-service", new RateLimitProperties.Limit(rate, burst));
+		return new TokenBucketRateLimiter(properties, new SimpleMeterRegistry());
+	}
+
+	@Test
+	void allowsBurstThenAsksToRetry() {
+		TokenBucketRateLimiter limiter = limiter(1, 5);
+		for (int i = 0; i < 5; i++) {
+			assertEquals(0, limiter.tryAcquire("commande-service", "amine"));
+		}
+		long wait = limiter.tryAcquire("commande-service", "amine");
+		assertTrue(wait > 0 && wait <= TimeUnit.SECONDS.toNanos(1));
+
+		// Other users and other routes have their own buckets
+		assertEquals(0, limiter.tryAcquire("commande-service", "freshuser"));
+		assertEquals(0, limiter.tryAcquire("produit-service", "amine"));
+	}
+
+	@Test
+	void neverAdmitsMoreThanBurstUnderContention() throws InterruptedException {
+		TokenBucketRateLimiter limiter = limiter(0.001, 100);
+		AtomicInteger admitted = new AtomicInteger();
+		ExecutorService pool = Executors.newFixedThreadPool(16);
+		for (int i = 0; i < 10_000; i++) {
+			pool.execute(() -> {
+				if (limiter.tryAcquire("commande-service", "amine") == 0) {
+					admitted.incrementAndGet();
+				}
+			});
+		}
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+		assertEquals(100, admitted.get());
+	}
+}
@@ -0,0 +1,106 @@
+package com.example.demo.security;
+
+import com.example.demo.security.VerifiedTokenCache.VerifiedToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RevocationListTests {
+
+	// Committed rows of the auth-service feed (JSON entries), by id; the endpoint answers "id > since order by id"
+	private final Map<Long, String> committed = new TreeMap<>();
+
+	private RevocationList revocationList(int overlap) {
+		WebClient.Builder builder = WebClient.builder().exchangeFunction(request -> {
+			if (!"feed-token".equals(request.headers().getFirst("X-Service-Token"))) {
+				return Mono.just(ClientResponse.create(HttpStatus.FORBIDDEN).build());
+			}
+			Map<String, String> query = UriComponentsBuilder.fromUri(request.url()).build().getQueryParams().toSingleValueMap();
+			long since = Long.parseLong(query.get("since"));
+			int limit = Integer.parseInt(query.get("limit"));
+			List<Map.Entry<Long, String>> page = committed.entrySet().stream()
+					.filter(e -> e.getKey() > since).limit(limit).toList();
+			long version = page.isEmpty() ? since : page.get(page.size() - 1).getKey();
+			String entries = page.stream()
+					.map(e -> "{\"id\":" + e.getKey() + "," + e.getValue() + ",\"expiresAt\":\"" + Instant.now().plusSeconds(600) + "\"}")
+					.collect(Collectors.joining(","));
+			return Mono.just(ClientResponse.create(HttpStatus.OK)
+					.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+					.body("{\"version\":" + version + ",\"entries\":[" + entries + "]}")
+					.build());
+		});
+		return new RevocationList(builder, (request, next) -> next.exchange(request), 100, overlap, Duration.ofSeconds(2),
+				"feed-token", 1000, 0.001, new SimpleMeterRegistry());
+	}
+
+	private void revokeToken(long id, String jti) {
+		committed.put(id, "\"type\":\"TOKEN\",\"target\":\"" + jti + "\"");
+	}
+
+	private void revokeUser(long id, String username, Instant issuedBefore) {
+		committed.put(id, "\"type\":\"USER\",\"target\":\"" + username + "\",\"issuedBefore\":\"" + issuedBefore + "\"");
+	}
+
+	private static VerifiedToken token(String jti) {
+		return new VerifiedToken(jti, "amine", List.of("USER"), 0, Long.MAX_VALUE);
+	}
+
+	@Test
+	void picksUpAnEntryCommittedAfterAHigherOne() {
+		RevocationList revocations = revocationList(200);
+
+		// Revocation 1 got its id first but its transaction commits after revocation 2 was read
+		revokeToken(2L, "jti-2");
+		revocations.poll();
+		assertTrue(revocations.isRevoked(token("jti-2")));
+		assertFalse(revocations.isRevoked(token("jti-1")));
+
+		revokeToken(1L, "jti-1");
+		revocations.poll();
+		assertTrue(revocations.isRevoked(token("jti-1")));
+		assertTrue(revocations.isRevoked(token("jti-2")));
+	}
+
+	@Test
+	void keepsPagingPastEntriesAlreadySeen() {
+		RevocationList revocations = revocationList(200);
+		for (long id = 1; id <= 150; id++) {
+			revokeToken(id, "jti-" + id);
+		}
+		revocations.poll();
+
+		for (long id = 151; id <= 400; id++) {
+			revokeToken(id, "jti-" + id);
+		}
+		revocations.poll();
+		assertTrue(revocations.isRevoked(token("jti-400")));
+	}
+
+	@Test
+	void keepsTokensIssuedInTheSecondOfAUserRevocation() {
+		RevocationList revocations = revocationList(200);
+		revokeUser(1L, "amine", Instant.parse("2026-01-01T10:00:00.700Z"));
+		revocations.poll();
+
+		long second = Instant.parse("2026-01-01T10:00:00Z").toEpochMilli();
+		// iat has no milliseconds: a login right after the revocation shares its second
+		assertFalse(revocations.isRevoked(new VerifiedToken("jti-a", "amine", List.of("USER"), second, Long.MAX_VALUE)));
+		assertTrue(revocations.isRevoked(new VerifiedToken("jti-b", "amine", List.of("USER"), second - 1000, Long.MAX_VALUE)));
+	}
+}
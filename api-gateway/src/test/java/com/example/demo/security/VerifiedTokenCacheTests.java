@@ -0,0 +1,71 @@
+package com.example.demo.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class VerifiedTokenCacheTests {
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final VerifiedTokenCache cache = new VerifiedTokenCache(100, meterRegistry);
+
+	private static String token(String jti, long expiresInMillis) {
+		return Jwts.builder()
+				.setId(jti)
+				.setSubject("amine")
+				.setIssuedAt(new Date())
+				.setExpiration(new Date(System.currentTimeMillis() + expiresInMillis))
+				.signWith(Keys.hmacShaKeyFor("secret12345678901234567890123456789012".getBytes(StandardCharsets.UTF_8)))
+				.compact();
+	}
+
+	private double size() {
+		return meterRegistry.get("gateway.auth.token.cache.size").gauge().value();
+	}
+
+	private double evictions() {
+		return meterRegistry.get("gateway.auth.token.cache.evictions").functionCounter().count();
+	}
+
+	@Test
+	void fullOfLiveTokensEvictsInOneBatch() {
+		for (int i = 0; i < 100; i++) {
+			cache.verify(token("jti-" + i, 600_000 + i));
+		}
+		assertEquals(100, size());
+
+		// Down to 90% of the limit, then the new token
+		cache.verify(token("jti-100", 600_000));
+		assertEquals(91, size());
+		assertEquals(10, evictions());
+
+		// The next misses fill the room left without evicting again
+		for (int i = 101; i < 110; i++) {
+			cache.verify(token("jti-" + i, 600_000));
+		}
+		assertEquals(100, size());
+		assertEquals(10, evictions());
+	}
+
+	@Test
+	void expiredTokensGoFirst() throws InterruptedException {
+		for (int i = 0; i < 50; i++) {
+			cache.verify(token("short-" + i, 1000));
+		}
+		for (int i = 0; i < 50; i++) {
+			cache.verify(token("long-" + i, 600_000));
+		}
+		Thread.sleep(1100);
+
+		cache.verify(token("new", 600_000));
+		assertEquals(51, size());
+		assertEquals(50, evictions());
+	}
+}
@@ -0,0 +1,29 @@
+package com.example.auth.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Table(indexes = {
+        @Index(name = "ux_refresh_token_hash", columnList = "tokenHash", unique = true),
+        @Index(name = "ix_refresh_token_family", columnList = "familyId"),
+        @Index(name = "ix_refresh_token_expires", columnList = "expiresAt")
+})
+@Data @NoArgsConstructor @AllArgsConstructor
+public class RefreshToken {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    // SHA-256 of the token handed to the client, the token itself is never stored
+    @Column(nullable = false, length = 64)
+    private String tokenHash;
+    private String username;
+    // Every token obtained by rotating the same login shares the family id
+    private String familyId;
+    private Instant expiresAt;
+    private Instant usedAt;
+    private boolean revoked;
+}
@@ -0,0 +1,29 @@
+package com.example.auth.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One entry of the revocation feed; the id doubles as the feed position the gateway polls from. Ids are
+ * not in commit order (a lower id can commit later), so readers re-read a few positions back on every poll.
+ * TOKEN entries name a single access token (jti), USER entries every token of a user issued before a date.
+ */
+@Entity
+@Table(indexes = @Index(name = "ix_revoked_token_expires", columnList = "expiresAt"))
+@Data @NoArgsConstructor @AllArgsConstructor
+public class RevokedToken {
+    public static final String TOKEN = "TOKEN";
+    public static final String USER = "USER";
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String type;
+    private String target;
+    private Instant issuedBefore;
+    // After this date every token the entry targets has expired anyway
+    private Instant expiresAt;
+}
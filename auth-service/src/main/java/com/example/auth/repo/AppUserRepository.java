@@ -1,8 +1,26 @@
 package com.example.auth.repo;
 
 import com.example.auth.entities.AppUser;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface AppUserRepository extends JpaRepository<AppUser, Long> {
+import java.util.Collection;
+import java.util.List;
+
+public interface AppUserRepository extends JpaRepository<AppUser, Long>, AppUserRepositoryCustom {
     AppUser findByUsername(String username);
+
+    // User and roles in one round trip instead of a select per eager collection
+    @Query("select distinct u from AppUser u left join fetch u.roles where u.username = :username")
+    AppUser findWithRolesByUsername(@Param("username") String username);
+
+    // Keyset pagination in two steps: a fetch join cannot be combined with a row limit in SQL
+    @Query("select u.id from AppUser u where u.id > :after order by u.id")
+    List<Long> findIdsAfter(@Param("after") Long after, Pageable pageable);
+
+    @EntityGraph(attributePaths = "roles")
+    List<AppUser> findByIdInOrderByIdAsc(Collection<Long> ids);
 }
@@ -0,0 +1,14 @@
+package com.example.auth.repo;
+
+import java.util.List;
+import java.util.Map;
+
+public interface AppUserRepositoryCustom {
+
+    /**
+     * One page of users in id order, starting after {@code after} (from the start when null), with only
+     * the requested columns plus the id. The password hash is never selectable.
+     * Throws IllegalArgumentException for any other field.
+     */
+    List<Map<String, Object>> findPageProjected(Long after, int limit, List<String> fields);
+}
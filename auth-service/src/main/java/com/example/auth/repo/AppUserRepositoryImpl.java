@@ -0,0 +1,60 @@
+package com.example.auth.repo;
+
+import com.example.auth.entities.AppUser;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+class AppUserRepositoryImpl implements AppUserRepositoryCustom {
+    private static final Set<String> SELECTABLE = Set.of("id", "username");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findPageProjected(Long after, int limit, List<String> fields) {
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add("id");
+        for (String field : fields) {
+            if (!SELECTABLE.contains(field)) {
+                throw new IllegalArgumentException("Unknown or restricted field: " + field);
+            }
+            selected.add(field);
+        }
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<AppUser> user = query.from(AppUser.class);
+        List<Selection<?>> selections = new ArrayList<>();
+        for (String field : selected) {
+            selections.add(user.get(field).alias(field));
+        }
+        query.multiselect(selections);
+        if (after != null) {
+            query.where(cb.greaterThan(user.get("id"), after));
+        }
+        query.orderBy(cb.asc(user.get("id")));
+
+        List<Map<String, Object>> page = new ArrayList<>();
+        for (Tuple tuple : entityManager.createQuery(query).setMaxResults(limit).getResultList()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (TupleElement<?> element : tuple.getElements()) {
+                row.put(element.getAlias(), tuple.get(element));
+            }
+            page.add(row);
+        }
+        return page;
+    }
+}
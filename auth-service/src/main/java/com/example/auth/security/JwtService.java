@@ -0,0 +1,51 @@
+package com.example.auth.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+@Component
+public class JwtService {
+
+    // Must match the secret in the API Gateway
+    private static final String SECRET = "secret12345678901234567890123456789012";
+
+    private final SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+    private final Duration accessTokenTtl;
+
+    public JwtService(@Value("${auth.jwt.access-token-ttl:5m}") Duration accessTokenTtl) {
+        this.accessTokenTtl = accessTokenTtl;
+    }
+
+    public String accessToken(String username, Collection<String> roles, String issuer) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
+                .setSubject(username)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + accessTokenTtl.toMillis()))
+                .setIssuer(issuer)
+                .claim("roles", List.copyOf(roles))
+                .signWith(key)
+                .compact();
+    }
+
+    // Verifies the signature and expiry, throws the jjwt exception otherwise
+    public Claims parse(String token) {
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+    }
+
+    public Duration getAccessTokenTtl() {
+        return accessTokenTtl;
+    }
+}
@@ -3,11 +3,15 @@ package com.example.auth.service;
 import com.example.auth.entities.AppRole;
 import com.example.auth.entities.AppUser;
 import java.util.List;
+import java.util.Map;
 
 public interface AccountService {
     AppUser addNewUser(AppUser appUser);
     AppRole addNewRole(AppRole appRole);
     void addRoleToUser(String username, String roleName);
+    void updatePassword(String username, String encodedPassword);
     AppUser loadUserByUsername(String username);
     List<AppUser> listUsers();
+    List<AppUser> listUsers(Long after, int limit);
+    List<Map<String, Object>> listUsers(Long after, int limit, List<String> fields);
 }
@@ -4,11 +4,13 @@ import com.example.auth.entities.AppRole;
 import com.example.auth.entities.AppUser;
 import com.example.auth.repo.AppRoleRepository;
 import com.example.auth.repo.AppUserRepository;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 
 @Service
 @Transactional
@@ -16,22 +18,27 @@ public class AccountServiceImpl implements AccountService {
     private AppUserRepository appUserRepository;
     private AppRoleRepository appRoleRepository;
     private PasswordEncoder passwordEncoder;
+    private UserDetailsCache userDetailsCache;
 
-    public AccountServiceImpl(AppUserRepository appUserRepository, AppRoleRepository appRoleRepository, PasswordEncoder passwordEncoder) {
+    public AccountServiceImpl(AppUserRepository appUserRepository, AppRoleRepository appRoleRepository,
+                              PasswordEncoder passwordEncoder, UserDetailsCache userDetailsCache) {
         this.appUserRepository = appUserRepository;
         this.appRoleRepository = appRoleRepository;
         this.passwordEncoder = passwordEncoder;
+        this.userDetailsCache = userDetailsCache;
     }
 
     @Override
     public AppUser addNewUser(AppUser appUser) {
         String pw = appUser.getPassword();
         appUser.setPassword(passwordEncoder.encode(pw));
+        userDetailsCache.invalidate(appUser.getUsername());
         return appUserRepository.save(appUser);
     }
 
     @Override
     public AppRole addNewRole(AppRole appRole) {
+        userDetailsCache.invalidateAll();
         return appRoleRepository.save(appRole);
     }
 
@@ -40,15 +47,34 @@ public class AccountServiceImpl implements AccountService {
         AppUser appUser = appUserRepository.findByUsername(username);
         AppRole appRole = appRoleRepository.findByRoleName(roleName);
         appUser.getRoles().add(appRole);
+        userDetailsCache.invalidate(username);
+    }
+
+    @Override
+    public void updatePassword(String username, String encodedPassword) {
+        AppUser appUser = appUserRepository.findByUsername(username);
+        if (appUser != null) appUser.setPassword(encodedPassword);
+        userDetailsCache.invalidate(username);
     }
 
     @Override
     public AppUser loadUserByUsername(String username) {
-        return appUserRepository.findByUsername(username);
+        return appUserRepository.findWithRolesByUsername(username);
     }
 
     @Override
     public List<AppUser> listUsers() {
         return appUserRepository.findAll();
     }
+
+    @Override
+    public List<AppUser> listUsers(Long after, int limit) {
+        List<Long> ids = appUserRepository.findIdsAfter(after != null ? after : Long.MIN_VALUE, PageRequest.of(0, limit));
+        return ids.isEmpty() ? List.of() : appUserRepository.findByIdInOrderByIdAsc(ids);
+    }
+
+    @Override
+    public List<Map<String, Object>> listUsers(Long after, int limit, List<String> fields) {
+        return appUserRepository.findPageProjected(after, limit, fields);
+    }
 }
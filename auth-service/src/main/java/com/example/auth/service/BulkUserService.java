@@ -0,0 +1,290 @@
+package com.example.auth.service;
+
+import com.example.auth.security.PasswordHashingExecutor;
+import com.example.auth.security.PasswordHashingExecutor.HashingOverloadedException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Creates users (with their roles) from an NDJSON stream, one JSON object per line.
+ * Lines are processed in chunks: passwords of a chunk are hashed in parallel on the hashing executor,
+ * then the chunk is written with JDBC batches in one transaction. A bad line is reported and skipped,
+ * it never fails the rest of the import: when the database rejects a chunk, the chunk is replayed one
+ * user per transaction to find the offending lines. At most {@code auth.bulk.max-errors} errors are
+ * listed; {@code failed} counts all of them.
+ */
+@Service
+public class BulkUserService {
+    private JdbcTemplate jdbcTemplate;
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private PasswordEncoder passwordEncoder;
+    private PasswordHashingExecutor passwordHashingExecutor;
+    private UserDetailsCache userDetailsCache;
+    private ObjectMapper objectMapper;
+    private int chunkSize;
+    private int hashingParallelism;
+    private int maxErrors;
+
+    public BulkUserService(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate,
+                           TransactionTemplate transactionTemplate, PasswordEncoder passwordEncoder,
+                           PasswordHashingExecutor passwordHashingExecutor, UserDetailsCache userDetailsCache,
+                           ObjectMapper objectMapper,
+                           @Value("${auth.bulk.chunk-size:500}") int chunkSize,
+                           @Value("${auth.bulk.hashing-parallelism:0}") int hashingParallelism,
+                           @Value("${auth.bulk.max-errors:1000}") int maxErrors) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.userDetailsCache = userDetailsCache;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+        // By default leave half of the hashing threads to logins
+        this.hashingParallelism = hashingParallelism > 0 ? hashingParallelism
+                : Math.max(1, passwordHashingExecutor.parallelism() / 2);
+    }
+
+    public BulkResult importUsers(InputStream ndjson) throws IOException {
+        Map<String, Long> roleIds = new HashMap<>();
+        jdbcTemplate.query("select id, role_name from app_role",
+                rs -> { roleIds.put(rs.getString("role_name"), rs.getLong("id")); });
+
+        Errors errors = new Errors(maxErrors);
+        Set<String> seen = new HashSet<>();
+        List<PendingUser> chunk = new ArrayList<>(chunkSize);
+        int received = 0;
+        int created = 0;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8));
+        String text;
+        int lineNumber = 0;
+        while ((text = reader.readLine()) != null) {
+            lineNumber++;
+            if (text.isBlank()) {
+                continue;
+            }
+            received++;
+            BulkUserLine line;
+            try {
+                line = objectMapper.readValue(text, BulkUserLine.class);
+            } catch (IOException e) {
+                errors.add(new RowError(lineNumber, null, "Malformed JSON"));
+                continue;
+            }
+            String error = validate(line, roleIds, seen);
+            if (error != null) {
+                errors.add(new RowError(lineNumber, line.username(), error));
+                continue;
+            }
+            chunk.add(new PendingUser(lineNumber, line));
+            if (chunk.size() >= chunkSize) {
+                created += writeChunk(chunk, roleIds, errors);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            created += writeChunk(chunk, roleIds, errors);
+        }
+        return new BulkResult(received, created, errors.count, errors.listed);
+    }
+
+    private static String validate(BulkUserLine line, Map<String, Long> roleIds, Set<String> seen) {
+        if (line.username() == null || line.username().isBlank()) {
+            return "Missing username";
+        }
+        if (line.password() == null || line.password().isEmpty()) {
+            return "Missing password";
+        }
+        if (line.roles() != null) {
+            for (String role : line.roles()) {
+                if (!roleIds.containsKey(role)) {
+                    return "Unknown role " + role;
+                }
+            }
+        }
+        if (!seen.add(line.username())) {
+            return "Duplicate username in this import";
+        }
+        return null;
+    }
+
+    private int writeChunk(List<PendingUser> chunk, Map<String, Long> roleIds, Errors errors) {
+        hashAll(chunk);
+        try {
+            return write(chunk, roleIds, errors);
+        } catch (DataAccessException e) {
+            // E.g. a username too long for the column, or a registration racing the existence check:
+            // replay one user per transaction so that only the offending lines fail
+            int created = 0;
+            for (PendingUser user : chunk) {
+                try {
+                    created += write(List.of(user), roleIds, errors);
+                } catch (DataAccessException userError) {
+                    errors.add(new RowError(user.lineNumber(), user.line().username(),
+                            userError.getMostSpecificCause().getMessage()));
+                }
+            }
+            return created;
+        }
+    }
+
+    // Errors found inside the transaction only count once it has committed
+    private int write(List<PendingUser> users, Map<String, Long> roleIds, Errors errors) {
+        List<RowError> rowErrors = new ArrayList<>();
+        Integer created = transactionTemplate.execute(status -> insert(users, roleIds, rowErrors));
+        rowErrors.forEach(errors::add);
+        return created != null ? created : 0;
+    }
+
+    // At most hashingParallelism hashes are queued at a time, so an import never fills the executor queue
+    private void hashAll(List<PendingUser> chunk) {
+        Semaphore permits = new Semaphore(hashingParallelism);
+        List<CompletableFuture<String>> hashes = new ArrayList<>(chunk.size());
+        for (PendingUser user : chunk) {
+            permits.acquireUninterruptibly();
+            hashes.add(submitHash(user.line().password()).whenComplete((hash, e) -> permits.release()));
+        }
+        for (int i = 0; i < chunk.size(); i++) {
+            chunk.get(i).hash = hashes.get(i).join();
+        }
+    }
+
+    private CompletableFuture<String> submitHash(String password) {
+        while (true) {
+            try {
+                return passwordHashingExecutor.submit(() -> passwordEncoder.encode(password));
+            } catch (HashingOverloadedException e) {
+                // Logins have filled the queue: let them through and try again
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private int insert(List<PendingUser> chunk, Map<String, Long> roleIds, List<RowError> errors) {
+        Map<String, Object> names = Map.of("names", chunk.stream().map(u -> u.line().username()).toList());
+        Set<String> existing = new HashSet<>(namedJdbcTemplate.queryForList(
+                "select username from app_user where username in (:names)", names, String.class));
+
+        List<PendingUser> fresh = new ArrayList<>(chunk.size());
+        for (PendingUser user : chunk) {
+            if (existing.contains(user.line().username())) {
+                errors.add(new RowError(user.lineNumber(), user.line().username(), "Username already exists"));
+            } else {
+                fresh.add(user);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return 0;
+        }
+
+        jdbcTemplate.batchUpdate("insert into app_user (username, password) values (?, ?) on conflict (username) do nothing",
+                fresh, fresh.size(), (ps, user) -> {
+                    ps.setString(1, user.line().username());
+                    ps.setString(2, user.hash);
+                });
+
+        // Read the generated ids back; a row created concurrently by someone else keeps its own password hash
+        Map<String, Long> ids = new HashMap<>();
+        namedJdbcTemplate.query("select id, username, password from app_user where username in (:names)", names, rs -> {
+            ids.put(rs.getString("username") + '\n' + rs.getString("password"), rs.getLong("id"));
+        });
+
+        List<long[]> links = new ArrayList<>();
+        int created = 0;
+        for (PendingUser user : fresh) {
+            Long id = ids.get(user.line().username() + '\n' + user.hash);
+            if (id == null) {
+                errors.add(new RowError(user.lineNumber(), user.line().username(), "Username already exists"));
+                continue;
+            }
+            created++;
+            if (user.line().roles() != null) {
+                for (String role : new HashSet<>(user.line().roles())) {
+                    links.add(new long[]{id, roleIds.get(role)});
+                }
+            }
+            userDetailsCache.invalidate(user.line().username());
+        }
+        if (!links.isEmpty()) {
+            jdbcTemplate.batchUpdate("insert into app_user_roles (app_user_id, roles_id) values (?, ?)",
+                    links, links.size(), (ps, link) -> {
+                        ps.setLong(1, link[0]);
+                        ps.setLong(2, link[1]);
+                    });
+        }
+        return created;
+    }
+
+    private static class Errors {
+        private final int max;
+        private final List<RowError> listed = new ArrayList<>();
+        private int count;
+
+        Errors(int max) {
+            this.max = max;
+        }
+
+        void add(RowError error) {
+            count++;
+            if (listed.size() < max) {
+                listed.add(error);
+            }
+        }
+    }
+
+    public record BulkUserLine(String username, String password, List<String> roles) {
+    }
+
+    public record RowError(int line, String username, String error) {
+    }
+
+    public record BulkResult(int received, int created, int failed, List<RowError> errors) {
+    }
+
+    private static class PendingUser {
+        private final int lineNumber;
+        private final BulkUserLine line;
+        private String hash;
+
+        PendingUser(int lineNumber, BulkUserLine line) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+        }
+
+        int lineNumber() {
+            return lineNumber;
+        }
+
+        BulkUserLine line() {
+            return line;
+        }
+    }
+}
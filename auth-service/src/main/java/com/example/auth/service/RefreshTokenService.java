@@ -0,0 +1,98 @@
+package com.example.auth.service;
+
+import com.example.auth.entities.RefreshToken;
+import com.example.auth.repo.RefreshTokenRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Opaque, single-use refresh tokens. Each refresh hands out a new token of the same family;
+ * presenting a token that was already used revokes the whole family (the token was stolen
+ * or replayed), which forces that login to authenticate with a password again.
+ */
+@Service
+@Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+public class RefreshTokenService {
+    private final SecureRandom random = new SecureRandom();
+    private RefreshTokenRepository refreshTokenRepository;
+    private Duration refreshTokenTtl;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               @Value("${auth.jwt.refresh-token-ttl:7d}") Duration refreshTokenTtl) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.refreshTokenTtl = refreshTokenTtl;
+    }
+
+    public String issue(String username) {
+        return newToken(username, UUID.randomUUID().toString());
+    }
+
+    public Rotation rotate(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            throw new InvalidRefreshTokenException("Missing refresh token");
+        }
+        RefreshToken token = refreshTokenRepository.findByTokenHash(hash(rawToken));
+        if (token == null) {
+            throw new InvalidRefreshTokenException("Unknown refresh token");
+        }
+        if (token.getExpiresAt().isBefore(Instant.now())) {
+            throw new InvalidRefreshTokenException("Refresh token expired");
+        }
+        // Conditional update: of two concurrent refreshes with the same token only one can win
+        if (token.isRevoked() || refreshTokenRepository.markUsed(token.getId(), Instant.now()) == 0) {
+            refreshTokenRepository.revokeFamily(token.getFamilyId());
+            throw new InvalidRefreshTokenException("Refresh token reuse detected");
+        }
+        return new Rotation(token.getUsername(), newToken(token.getUsername(), token.getFamilyId()));
+    }
+
+    // Revokes the family of the given token, without telling whether it existed
+    public void revoke(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) return;
+        RefreshToken token = refreshTokenRepository.findByTokenHash(hash(rawToken));
+        if (token != null) refreshTokenRepository.revokeFamily(token.getFamilyId());
+    }
+
+    public void revokeAllForUser(String username) {
+        refreshTokenRepository.revokeAllForUser(username);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.jwt.refresh-token-sweep-ms:600000}")
+    public void deleteExpired() {
+        refreshTokenRepository.deleteExpired(Instant.now());
+    }
+
+    private String newToken(String username, String familyId) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        RefreshToken token = new RefreshToken(null, hash(rawToken), username, familyId,
+                Instant.now().plus(refreshTokenTtl), null, false);
+        refreshTokenRepository.save(token);
+        return rawToken;
+    }
+
+    static String hash(String rawToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record Rotation(String username, String refreshToken) {
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.auth.service;
+
+import com.example.auth.entities.RevokedToken;
+import com.example.auth.repo.RevokedTokenRepository;
+import com.example.auth.security.JwtService;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Revoked access tokens, published as an append-only feed the gateway polls with {@code since}.
+ */
+@Service
+@Transactional
+public class RevocationService {
+    private RevokedTokenRepository revokedTokenRepository;
+    private RefreshTokenService refreshTokenService;
+    private JwtService jwtService;
+
+    public RevocationService(RevokedTokenRepository revokedTokenRepository, RefreshTokenService refreshTokenService,
+                             JwtService jwtService) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.refreshTokenService = refreshTokenService;
+        this.jwtService = jwtService;
+    }
+
+    public void revokeToken(String jti, Instant expiresAt) {
+        revokedTokenRepository.save(new RevokedToken(null, RevokedToken.TOKEN, jti, null, expiresAt));
+    }
+
+    // Kills every access token the user holds right now, and all of their refresh tokens
+    public void revokeUser(String username) {
+        Instant now = Instant.now();
+        revokedTokenRepository.save(new RevokedToken(null, RevokedToken.USER, username, now,
+                now.plus(jwtService.getAccessTokenTtl()).plusSeconds(60)));
+        refreshTokenService.revokeAllForUser(username);
+    }
+
+    @Transactional(readOnly = true)
+    public List<RevokedToken> changesSince(long since, int limit) {
+        return revokedTokenRepository.findByIdGreaterThanOrderByIdAsc(since, PageRequest.of(0, limit));
+    }
+
+    @Scheduled(fixedDelayString = "${auth.revocation.sweep-ms:600000}")
+    public void deleteExpired() {
+        revokedTokenRepository.deleteExpired(Instant.now());
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.auth.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Bounded, TTL'd cache of resolved users (password hash + authority names).
+ * Holds plain values rather than UserDetails: Spring Security erases the credentials
+ * of the principal it returns, which would wipe a shared cached instance.
+ */
+@Component
+public class UserDetailsCache {
+    private final Map<String, Entry> users = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private final int maxSize;
+
+    public UserDetailsCache(@Value("${auth.user-cache.ttl:5m}") Duration ttl,
+                            @Value("${auth.user-cache.max-size:10000}") int maxSize) {
+        this.ttlMillis = ttl.toMillis();
+        this.maxSize = maxSize;
+    }
+
+    public CachedUser get(String username, Function<String, CachedUser> loader) {
+        long now = System.currentTimeMillis();
+        Entry entry = users.get(username);
+        if (entry != null && now - entry.loadedAt() < ttlMillis) {
+            return entry.user();
+        }
+        CachedUser user = loader.apply(username);
+        if (user != null) {
+            if (users.size() >= maxSize) evict(now);
+            users.put(username, new Entry(user, now));
+        }
+        return user;
+    }
+
+    // Drops the entry now and again once the surrounding transaction commits,
+    // so a concurrent login cannot re-cache the pre-commit state
+    public void invalidate(String username) {
+        if (username == null) return;
+        users.remove(username);
+        afterCommit(() -> users.remove(username));
+    }
+
+    public void invalidateAll() {
+        users.clear();
+        afterCommit(users::clear);
+    }
+
+    private void evict(long now) {
+        users.values().removeIf(e -> now - e.loadedAt() >= ttlMillis);
+        Iterator<String> it = users.keySet().iterator();
+        while (users.size() >= maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    public record CachedUser(String username, String password, List<String> authorities) {
+    }
+
+    private record Entry(CachedUser user, long loadedAt) {
+    }
+}
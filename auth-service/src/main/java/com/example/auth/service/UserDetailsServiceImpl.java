@@ -1,10 +1,12 @@
 package com.example.auth.service;
 
 import com.example.auth.entities.AppUser;
+import com.example.auth.service.UserDetailsCache.CachedUser;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -13,21 +15,37 @@ import java.util.ArrayList;
 import java.util.Collection;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
     private AccountService accountService;
+    private UserDetailsCache userDetailsCache;
 
-    public UserDetailsServiceImpl(AccountService accountService) {
+    public UserDetailsServiceImpl(AccountService accountService, UserDetailsCache userDetailsCache) {
         this.accountService = accountService;
+        this.userDetailsCache = userDetailsCache;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        AppUser appUser = accountService.loadUserByUsername(username);
-        if(appUser == null) throw new UsernameNotFoundException("User not found");
+        CachedUser cachedUser = userDetailsCache.get(username, this::load);
+        if(cachedUser == null) throw new UsernameNotFoundException("User not found");
         Collection<GrantedAuthority> authorities = new ArrayList<>();
-        appUser.getRoles().forEach(r -> {
-            authorities.add(new SimpleGrantedAuthority(r.getRoleName()));
+        cachedUser.authorities().forEach(a -> {
+            authorities.add(new SimpleGrantedAuthority(a));
         });
-        return new User(appUser.getUsername(), appUser.getPassword(), authorities);
+        return new User(cachedUser.username(), cachedUser.password(), authorities);
+    }
+
+    private CachedUser load(String username) {
+        AppUser appUser = accountService.loadUserByUsername(username);
+        if(appUser == null) return null;
+        return new CachedUser(appUser.getUsername(), appUser.getPassword(),
+                appUser.getRoles().stream().map(r -> r.getRoleName()).toList());
+    }
+
+    // Called by Spring Security after a successful login when the stored hash uses another work factor
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        accountService.updatePassword(user.getUsername(), newPassword);
+        return User.withUserDetails(user).password(newPassword).build();
     }
 }
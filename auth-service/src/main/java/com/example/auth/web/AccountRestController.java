@@ -2,27 +2,81 @@ package com.example.auth.web;
 
 import com.example.auth.entities.AppRole;
 import com.example.auth.entities.AppUser;
+import com.example.auth.security.JwtService;
+import com.example.auth.security.PasswordHashingExecutor;
 import com.example.auth.service.AccountService;
+import com.example.auth.service.BulkUserService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 public class AccountRestController {
     private AccountService accountService;
+    private PasswordHashingExecutor passwordHashingExecutor;
+    private BulkUserService bulkUserService;
+    private JwtService jwtService;
 
-    public AccountRestController(AccountService accountService) {
+    public AccountRestController(AccountService accountService, PasswordHashingExecutor passwordHashingExecutor,
+                                 BulkUserService bulkUserService, JwtService jwtService) {
         this.accountService = accountService;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.bulkUserService = bulkUserService;
+        this.jwtService = jwtService;
     }
 
+    // Keyset pages: pass X-Next-Cursor back as "after"; fields=id,username selects columns; unpaged=true lists everyone
     @GetMapping("/users")
-    public List<AppUser> appUsers() {
-        return accountService.listUsers();
+    public ResponseEntity<List<?>> appUsers(@RequestParam(required = false) Long after,
+                                            @RequestParam(defaultValue = "100") int limit,
+                                            @RequestParam(required = false) List<String> fields,
+                                            @RequestParam(defaultValue = "false") boolean unpaged) {
+        if (unpaged) {
+            return ResponseEntity.ok(accountService.listUsers());
+        }
+        int size = Math.max(1, Math.min(limit, 1000));
+        Long lastId;
+        List<?> page;
+        if (fields != null && !fields.isEmpty()) {
+            List<Map<String, Object>> rows;
+            try {
+                rows = accountService.listUsers(after, size, fields);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+            lastId = rows.isEmpty() ? null : (Long) rows.get(rows.size() - 1).get("id");
+            page = rows;
+        } else {
+            List<AppUser> users = accountService.listUsers(after, size);
+            lastId = users.isEmpty() ? null : users.get(users.size() - 1).getId();
+            page = users;
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == size && lastId != null) {
+            response.header("X-Next-Cursor", lastId.toString());
+        }
+        return response.body(page);
     }
 
     @PostMapping("/users")
-    public AppUser saveUser(@RequestBody AppUser appUser) {
-        return accountService.addNewUser(appUser);
+    public CompletableFuture<AppUser> saveUser(@RequestBody AppUser appUser) {
+        return passwordHashingExecutor.submit(() -> accountService.addNewUser(appUser));
+    }
+
+    // One user per line: {"username":"...","password":"...","roles":["USER"]}; errors are reported per line
+    @PostMapping(value = "/users/bulk", consumes = {"application/x-ndjson", "text/plain"})
+    public BulkUserService.BulkResult saveUsers(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authHeader,
+                                                HttpServletRequest request) throws IOException {
+        BearerTokens.requireRole(jwtService, authHeader, "ADMIN");
+        return bulkUserService.importUsers(request.getInputStream());
     }
 
     @PostMapping("/roles")
@@ -1,53 +1,80 @@
 package com.example.auth.web;
 
-import com.example.auth.service.AccountService;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
+import com.example.auth.security.JwtService;
+import com.example.auth.security.PasswordHashingExecutor;
+import com.example.auth.service.InvalidRefreshTokenException;
+import com.example.auth.service.RefreshTokenService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.nio.charset.StandardCharsets;
-import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @RestController
 public class AuthController {
     private AuthenticationManager authenticationManager;
-    private AccountService accountService;
+    private UserDetailsService userDetailsService;
+    private JwtService jwtService;
+    private RefreshTokenService refreshTokenService;
+    private PasswordHashingExecutor passwordHashingExecutor;
 
-    public AuthController(AuthenticationManager authenticationManager, AccountService accountService) {
+    public AuthController(AuthenticationManager authenticationManager, UserDetailsService userDetailsService,
+                          JwtService jwtService, RefreshTokenService refreshTokenService,
+                          PasswordHashingExecutor passwordHashingExecutor) {
         this.authenticationManager = authenticationManager;
-        this.accountService = accountService;
+        this.userDetailsService = userDetailsService;
+        this.jwtService = jwtService;
+        this.refreshTokenService = refreshTokenService;
+        this.passwordHashingExecutor = passwordHashingExecutor;
     }
 
+    // The BCrypt check runs on the hashing executor; the request thread is released meanwhile
     @PostMapping("/login")
-    public Map<String, String> login(@RequestBody Map<String, String> credentials, HttpServletRequest request) {
+    public CompletableFuture<Map<String, String>> login(@RequestBody Map<String, String> credentials, HttpServletRequest request) {
         String username = credentials.get("username");
         String password = credentials.get("password");
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(username, password)
-        );
-        User user = (User) authentication.getPrincipal();
-        String algorithm = "secret12345678901234567890123456789012"; 
-        
-        String jwtAccessToken = Jwts.builder()
-                .setSubject(user.getUsername())
-                .setExpiration(new Date(System.currentTimeMillis() + 5 * 60 * 1000))
-                .setIssuer(request.getRequestURL().toString())
-                .claim("roles", user.getAuthorities().stream().map(ga -> ga.getAuthority()).collect(Collectors.toList()))
-                .signWith(Keys.hmacShaKeyFor(algorithm.getBytes(StandardCharsets.UTF_8)))
-                .compact();
-                
+        String issuer = request.getRequestURL().toString();
+        return passwordHashingExecutor.submit(() -> {
+            Authentication authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(username, password)
+            );
+            User user = (User) authentication.getPrincipal();
+            List<String> roles = user.getAuthorities().stream().map(ga -> ga.getAuthority()).collect(Collectors.toList());
+
+            Map<String, String> idToken = new HashMap<>();
+            idToken.put("access-token", jwtService.accessToken(user.getUsername(), roles, issuer));
+            idToken.put("refresh-token", refreshTokenService.issue(user.getUsername()));
+            return idToken;
+        });
+    }
+
+    // Exchanges a refresh token for a new access token (and a new refresh token), no password check involved
+    @PostMapping("/refresh")
+    public Map<String, String> refresh(@RequestBody Map<String, String> body, HttpServletRequest request) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(body.get("refresh-token"));
+        UserDetails user;
+        try {
+            user = userDetailsService.loadUserByUsername(rotation.username());
+        } catch (UsernameNotFoundException e) {
+            throw new InvalidRefreshTokenException("User not found");
+        }
+        List<String> roles = user.getAuthorities().stream().map(ga -> ga.getAuthority()).collect(Collectors.toList());
+
         Map<String, String> idToken = new HashMap<>();
-        idToken.put("access-token", jwtAccessToken);
+        idToken.put("access-token", jwtService.accessToken(user.getUsername(), roles, request.getRequestURL().toString()));
+        idToken.put("refresh-token", rotation.refreshToken());
         return idToken;
     }
 }
@@ -0,0 +1,33 @@
+package com.example.auth.web;
+
+import com.example.auth.security.JwtService;
+import io.jsonwebtoken.Claims;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+// Endpoints behind a gateway-public path check the caller's token themselves
+final class BearerTokens {
+
+    private BearerTokens() {
+    }
+
+    static Claims claims(JwtService jwtService, String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+        }
+        try {
+            return jwtService.parse(authHeader.substring(7));
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+        }
+    }
+
+    static void requireRole(JwtService jwtService, String authHeader, String role) {
+        List<?> roles = claims(jwtService, authHeader).get("roles", List.class);
+        if (roles == null || !roles.contains(role)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.auth.web;
+
+import com.example.auth.entities.RevokedToken;
+import com.example.auth.security.JwtService;
+import com.example.auth.service.RefreshTokenService;
+import com.example.auth.service.RevocationService;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+public class RevocationController {
+    static final String SERVICE_TOKEN = "X-Service-Token";
+
+    private RevocationService revocationService;
+    private RefreshTokenService refreshTokenService;
+    private JwtService jwtService;
+    private byte[] feedToken;
+
+    public RevocationController(RevocationService revocationService, RefreshTokenService refreshTokenService,
+                                JwtService jwtService, @Value("${auth.revocation.feed-token:}") String feedToken) {
+        this.revocationService = revocationService;
+        this.refreshTokenService = refreshTokenService;
+        this.jwtService = jwtService;
+        this.feedToken = feedToken.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @PostMapping("/logout")
+    public void logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader,
+                       @RequestBody(required = false) Map<String, String> body) {
+        Claims claims = BearerTokens.claims(jwtService, authHeader);
+        if (claims.getId() != null) {
+            revocationService.revokeToken(claims.getId(), claims.getExpiration().toInstant());
+        }
+        if (body != null) {
+            refreshTokenService.revoke(body.get("refresh-token"));
+        }
+    }
+
+    @PostMapping("/revocations/users/{username}")
+    public void revokeUser(@RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader, @PathVariable String username) {
+        BearerTokens.requireRole(jwtService, authHeader, "ADMIN");
+        revocationService.revokeUser(username);
+    }
+
+    // Polled by the gateway with the shared feed token (admins may read it too): entries after "since",
+    // oldest first; "version" is where to resume from
+    @GetMapping("/revocations")
+    public Map<String, Object> revocations(@RequestHeader(value = SERVICE_TOKEN, required = false) String serviceToken,
+                                           @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authHeader,
+                                           @RequestParam(defaultValue = "0") long since,
+                                           @RequestParam(defaultValue = "1000") int limit) {
+        if (!isFeedClient(serviceToken)) {
+            BearerTokens.requireRole(jwtService, authHeader, "ADMIN");
+        }
+        List<RevokedToken> entries = revocationService.changesSince(since, Math.min(limit, 10000));
+        Map<String, Object> feed = new HashMap<>();
+        feed.put("version", entries.isEmpty() ? since : entries.get(entries.size() - 1).getId());
+        feed.put("entries", entries);
+        return feed;
+    }
+
+    // An empty token disables service access: only admins can read the feed then
+    private boolean isFeedClient(String serviceToken) {
+        return feedToken.length > 0 && serviceToken != null
+                && MessageDigest.isEqual(feedToken, serviceToken.getBytes(StandardCharsets.UTF_8));
+    }
+}
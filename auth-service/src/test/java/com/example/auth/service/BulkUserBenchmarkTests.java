@@ -0,0 +1,78 @@
+package com.example.auth.service;
+
+import com.example.auth.entities.AppRole;
+import com.example.auth.entities.AppUser;
+import com.example.auth.repo.AppRoleRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * One-by-one registration versus the bulk import, against the configured database.
+ * Opt-in: ./benchmark-postgres.sh auth-service BulkUserBenchmarkTests [-Dbenchmark.users=2000]
+ * (or mvn -pl auth-service test -Dbenchmark=true against the configured database); results in the README.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BulkUserBenchmarkTests {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkUserBenchmarkTests.class);
+    private static final String PREFIX = "bench-";
+
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private BulkUserService bulkUserService;
+    @Autowired
+    private AppRoleRepository appRoleRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void bulkImportAgainstOneByOne() throws Exception {
+        int users = Integer.getInteger("benchmark.users", 500);
+        if (appRoleRepository.findByRoleName("USER") == null) {
+            accountService.addNewRole(new AppRole(null, "USER"));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < users; i++) {
+            String username = PREFIX + "single-" + i;
+            accountService.addNewUser(new AppUser(null, username, "password" + i, new ArrayList<>()));
+            accountService.addRoleToUser(username, "USER");
+        }
+        long oneByOne = System.nanoTime() - start;
+
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < users; i++) {
+            ndjson.append("{\"username\":\"").append(PREFIX).append("bulk-").append(i)
+                    .append("\",\"password\":\"password").append(i).append("\",\"roles\":[\"USER\"]}\n");
+        }
+        start = System.nanoTime();
+        BulkUserService.BulkResult result = bulkUserService.importUsers(
+                new ByteArrayInputStream(ndjson.toString().getBytes(StandardCharsets.UTF_8)));
+        long bulk = System.nanoTime() - start;
+
+        assertEquals(users, result.created(), () -> "errors: " + result.errors());
+        log.info("{} users: one-by-one {} ms ({} users/s), bulk {} ms ({} users/s)", users,
+                Math.round(oneByOne / 1e6), Math.round(users / (oneByOne / 1e9)),
+                Math.round(bulk / 1e6), Math.round(users / (bulk / 1e9)));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from app_user_roles where app_user_id in (select id from app_user where username like ?)", PREFIX + "%");
+        jdbcTemplate.update("delete from app_user where username like ?", PREFIX + "%");
+    }
+}
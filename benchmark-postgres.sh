@@ -0,0 +1,50 @@
+#!/bin/bash
+# Runs an opt-in benchmark test against a throwaway PostgreSQL 16.4, so the results do not depend on
+# the local database. The server comes from the embedded-postgres binaries on Maven Central (Linux x86_64)
+# and listens on port 55432 (BENCHMARK_PG_PORT); it is stopped and deleted afterwards.
+#
+# Usage: ./benchmark-postgres.sh <module> <test class> [maven options]
+#   ./benchmark-postgres.sh commande-service CommandeCreationBenchmarkTests -Dbenchmark.orders=200
+#   ./benchmark-postgres.sh auth-service BulkUserBenchmarkTests
+
+set -euo pipefail
+
+if [ $# -lt 2 ]; then
+    echo "Usage: $0 <module> <test class> [maven options]" >&2
+    exit 1
+fi
+MODULE=$1
+TEST=$2
+shift 2
+
+PG_VERSION=16.4.0
+PORT=${BENCHMARK_PG_PORT:-55432}
+cd "$(dirname "$0")"
+WORK=$(mktemp -d)
+
+echo "Fetching PostgreSQL $PG_VERSION..."
+mvn -B -q -N dependency:copy -Dartifact=io.zonky.test.postgres:embedded-postgres-binaries-linux-amd64:$PG_VERSION \
+    -DoutputDirectory="$WORK"
+unzip -q -o "$WORK"/embedded-postgres-binaries-linux-amd64-$PG_VERSION.jar postgres-linux-x86_64.txz -d "$WORK"
+mkdir "$WORK/pg"
+tar -xJf "$WORK/postgres-linux-x86_64.txz" -C "$WORK/pg"
+
+# PostgreSQL refuses to run as root
+RUN=()
+if [ "$(id -u)" = 0 ]; then
+    chown -R nobody "$WORK"
+    chmod 755 "$WORK"
+    RUN=(runuser -u nobody --)
+fi
+pg() {
+    ${RUN[@]+"${RUN[@]}"} "$@"
+}
+
+pg "$WORK/pg/bin/initdb" -D "$WORK/data" -U postgres --auth=trust -E UTF8 > "$WORK/initdb.log"
+pg "$WORK/pg/bin/pg_ctl" -D "$WORK/data" -o "-p $PORT -k $WORK" -l "$WORK/postgres.log" -w start > /dev/null
+trap 'pg "$WORK/pg/bin/pg_ctl" -D "$WORK/data" -m fast stop > /dev/null; rm -rf "$WORK"' EXIT
+
+echo "Running $TEST against PostgreSQL $PG_VERSION on port $PORT..."
+mvn -B -pl "$MODULE" -am test -Dtest="$TEST" -Dsurefire.failIfNoSpecifiedTests=false -Dbenchmark=true \
+    -Dspring.datasource.url="jdbc:postgresql://localhost:$PORT/postgres?reWriteBatchedInserts=true" \
+    -Dspring.datasource.username=postgres -Dspring.datasource.password= "$@"
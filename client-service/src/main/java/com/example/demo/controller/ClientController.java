@@ -2,26 +2,106 @@ package com.example.demo.controller;
 
 import com.example.demo.entities.Client;
 import com.example.demo.repository.ClientRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 import org.springaicommunity.mcp.annotation.McpTool;
 import org.springaicommunity.mcp.annotation.McpToolParam;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 public class ClientController {
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private ClientRepository clientRepository;
+    private ObjectMapper objectMapper;
+    private int exportFetchSize;
 
-    public ClientController(ClientRepository clientRepository) {
+    public ClientController(ClientRepository clientRepository, ObjectMapper objectMapper,
+                            @Value("${clients.export.fetch-size:500}") int exportFetchSize) {
         this.clientRepository = clientRepository;
+        this.objectMapper = objectMapper;
+        this.exportFetchSize = exportFetchSize;
     }
 
-    @McpTool(name = "getClients", description = "Récupère la liste de tous les clients")
+    /**
+     * Pages of clients in id order: pass the X-Next-Cursor header of a page as "after" to get the next one
+     * (no header means last page). "fields" selects columns, e.g. fields=name,email.
+     * unpaged=true returns the whole table as before, for existing callers.
+     */
     @GetMapping("/clients")
-    public List<Client> clients() {
-        return clientRepository.findAll();
+    public ResponseEntity<List<?>> clients(@RequestParam(required = false) Long after,
+                                           @RequestParam(defaultValue = "100") int limit,
+                                           @RequestParam(required = false) List<String> fields,
+                                           @RequestParam(defaultValue = "false") boolean unpaged) {
+        if (unpaged) {
+            return ResponseEntity.ok(clientRepository.findAll());
+        }
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        if (fields != null && !fields.isEmpty()) {
+            List<Map<String, Object>> page;
+            try {
+                page = clientRepository.findPageProjected(after, size, fields);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+            return withCursor(page, size, page.isEmpty() ? null : (Long) page.get(page.size() - 1).get("id"));
+        }
+        List<Client> page = findPage(after, size);
+        return withCursor(page, size, page.isEmpty() ? null : page.get(page.size() - 1).getId());
+    }
+
+    /**
+     * Every client as NDJSON, one object per line, streamed while the rows are read. Writes block when the
+     * caller reads slowly, which in turn pauses the cursor: memory use stays the same whatever the table size.
+     */
+    @GetMapping(value = "/clients/export", produces = "application/x-ndjson")
+    public void export(HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try (SequenceWriter lines = objectMapper.writerFor(Client.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n")
+                .writeValues(generator)) {
+            int[] written = {0};
+            clientRepository.forEachClient(exportFetchSize, client -> {
+                try {
+                    lines.write(client);
+                    if (++written[0] % exportFetchSize == 0) {
+                        lines.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Most likely the caller went away: the cursor and its transaction are closed by now
+            throw e.getCause();
+        }
+        response.getOutputStream().write('\n');
+    }
+
+    @McpTool(name = "getClients", description = "Récupère une page de clients (100 par défaut), triés par ID")
+    public List<Client> getClients(
+            @McpToolParam(description = "ID du dernier client de la page précédente", required = false) Long after,
+            @McpToolParam(description = "Nombre maximum de clients", required = false) Integer limit) {
+        return findPage(after, Math.max(1, Math.min(limit != null ? limit : 100, MAX_PAGE_SIZE)));
     }
 
     @McpTool(name = "getClient", description = "Récupère un client via son ID")
@@ -29,5 +109,16 @@ public class ClientController {
     public Client client(@McpToolParam(description = "ID du client") @PathVariable Long id) {
         return clientRepository.findById(id).orElse(null);
     }
-    
+
+    private List<Client> findPage(Long after, int size) {
+        return clientRepository.findByIdGreaterThanOrderByIdAsc(after != null ? after : Long.MIN_VALUE, PageRequest.of(0, size));
+    }
+
+    private static ResponseEntity<List<?>> withCursor(List<?> page, int size, Long lastId) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == size && lastId != null) {
+            response.header("X-Next-Cursor", lastId.toString());
+        }
+        return response.body(page);
+    }
 }
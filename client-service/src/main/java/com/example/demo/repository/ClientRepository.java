@@ -1,7 +1,13 @@
 package com.example.demo.repository;
 
 import com.example.demo.entities.Client;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
-public interface ClientRepository extends JpaRepository<Client, Long> {
+import java.util.List;
+
+public interface ClientRepository extends JpaRepository<Client, Long>, ClientRepositoryCustom {
+
+    // Keyset pagination: "where id > :after order by id", no offset to skip
+    List<Client> findByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
 }
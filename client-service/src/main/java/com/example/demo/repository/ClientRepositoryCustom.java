@@ -0,0 +1,24 @@
+package com.example.demo.repository;
+
+import com.example.demo.entities.Client;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+public interface ClientRepositoryCustom {
+
+    /**
+     * One page of clients in id order, starting after {@code after} (from the start when null).
+     * Only the requested columns are selected, plus the id, which is the cursor of the next page.
+     * Throws IllegalArgumentException for a field that is not a column of Client.
+     */
+    List<Map<String, Object>> findPageProjected(Long after, int limit, List<String> fields);
+
+    /**
+     * Hands every client to {@code action} in id order, reading through a forward-only cursor
+     * {@code fetchSize} rows at a time. Each entity is detached once handled, so memory use does not
+     * grow with the table. Must be called outside of any transaction: it opens its own.
+     */
+    void forEachClient(int fetchSize, Consumer<Client> action);
+}
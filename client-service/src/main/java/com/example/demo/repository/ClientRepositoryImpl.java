@@ -0,0 +1,83 @@
+package com.example.demo.repository;
+
+import com.example.demo.entities.Client;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.Attribute;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Tuple query: the selected columns are only known at runtime, so no interface projection fits here
+class ClientRepositoryImpl implements ClientRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findPageProjected(Long after, int limit, List<String> fields) {
+        Set<String> columns = entityManager.getMetamodel().entity(Client.class).getSingularAttributes().stream()
+                .map(Attribute::getName).collect(Collectors.toSet());
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add("id");
+        for (String field : fields) {
+            if (!columns.contains(field)) {
+                throw new IllegalArgumentException("Champ inconnu : " + field);
+            }
+            selected.add(field);
+        }
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Client> client = query.from(Client.class);
+        List<Selection<?>> selections = new ArrayList<>();
+        for (String field : selected) {
+            selections.add(client.get(field).alias(field));
+        }
+        query.multiselect(selections);
+        if (after != null) {
+            query.where(cb.greaterThan(client.get("id"), after));
+        }
+        query.orderBy(cb.asc(client.get("id")));
+
+        List<Map<String, Object>> page = new ArrayList<>();
+        for (Tuple tuple : entityManager.createQuery(query).setMaxResults(limit).getResultList()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (TupleElement<?> element : tuple.getElements()) {
+                row.put(element.getAlias(), tuple.get(element));
+            }
+            page.add(row);
+        }
+        return page;
+    }
+
+    // Postgres only honours the fetch size inside a transaction; without one the driver reads every row at once
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachClient(int fetchSize, Consumer<Client> action) {
+        try (Stream<Client> clients = entityManager.createQuery("select c from Client c order by c.id", Client.class)
+                .setHint(AvailableHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(AvailableHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            clients.forEach(client -> {
+                action.accept(client);
+                entityManager.detach(client);
+            });
+        }
+    }
+}
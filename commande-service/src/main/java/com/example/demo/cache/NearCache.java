@@ -0,0 +1,284 @@
+package com.example.demo.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Bounded local copy of data owned by another service. An entry is
+ * <ul>
+ *   <li>fresh for {@code ttl}: served as is;</li>
+ *   <li>stale for {@code stale} more: still served, and reloaded in the background, one reload per key
+ *       at a time;</li>
+ *   <li>expired after that: loaded again before answering.</li>
+ * </ul>
+ * "Does not exist" is cached too, for {@code negativeTtl}. A failed load caches nothing: the caller sees
+ * the failure and a stale entry keeps being served until it expires.
+ * <p>
+ * Loaders receive the keys to load and return the values found; a key missing from the returned map does
+ * not exist. A loader that cannot tell (service down, circuit breaker fallback) must throw.
+ */
+public class NearCache<K, V> {
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final long staleNanos;
+    private final long negativeTtlNanos;
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Set<K> refreshing = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final ThreadPoolExecutor refresher;
+
+    private final Counter hits;
+    private final Counter staleHits;
+    private final Counter negativeHits;
+    private final Counter misses;
+    private final Counter refreshFailures;
+    private final Counter evictions;
+    private final DistributionSummary servedAge;
+
+    public NearCache(String name, int maxSize, Duration ttl, Duration stale, Duration negativeTtl,
+                     MeterRegistry meterRegistry) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.staleNanos = stale.toNanos();
+        this.negativeTtlNanos = negativeTtl.toNanos();
+        this.refresher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(64), r -> {
+            Thread thread = new Thread(r, "nearcache-" + name + "-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.hits = meterRegistry.counter("nearcache.requests", "cache", name, "result", "hit");
+        this.staleHits = meterRegistry.counter("nearcache.requests", "cache", name, "result", "stale");
+        this.negativeHits = meterRegistry.counter("nearcache.requests", "cache", name, "result", "negative");
+        this.misses = meterRegistry.counter("nearcache.requests", "cache", name, "result", "miss");
+        this.refreshFailures = meterRegistry.counter("nearcache.refresh.failures", "cache", name);
+        this.evictions = meterRegistry.counter("nearcache.evictions", "cache", name);
+        this.servedAge = DistributionSummary.builder("nearcache.served.age")
+                .description("Age of the cached values served, fresh or stale")
+                .baseUnit("milliseconds")
+                .tag("cache", name)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("nearcache.size", entries, Map::size).tag("cache", name).register(meterRegistry);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Result<K, V> get(K key, Function<Set<K>, Map<K, V>> loader) {
+        return getAll(List.of(key), loader);
+    }
+
+    public Result<K, V> getAll(Collection<K> keys, Function<Set<K>, Map<K, V>> loader) {
+        long now = System.nanoTime();
+        Map<K, V> found = new LinkedHashMap<>();
+        Set<K> notFound = new LinkedHashSet<>();
+        Set<K> toLoad = new LinkedHashSet<>();
+        Set<K> toRefresh = new LinkedHashSet<>();
+
+        for (K key : keys) {
+            Entry<V> entry = entries.get(key);
+            long age = entry != null ? now - entry.loadedAt : Long.MAX_VALUE;
+            if (entry == null || age >= entry.expiresAfter) {
+                misses.increment();
+                toLoad.add(key);
+                continue;
+            }
+            servedAge.record(TimeUnit.NANOSECONDS.toMillis(age));
+            if (entry.value == null) {
+                negativeHits.increment();
+                notFound.add(key);
+                continue;
+            }
+            found.put(key, entry.value);
+            if (age < ttlNanos) {
+                hits.increment();
+            } else {
+                staleHits.increment();
+                toRefresh.add(key);
+            }
+        }
+
+        if (!toRefresh.isEmpty()) {
+            refreshInBackground(toRefresh, loader);
+        }
+        RuntimeException failure = null;
+        if (!toLoad.isEmpty()) {
+            try {
+                Map<K, V> loaded = load(toLoad, loader);
+                for (K key : toLoad) {
+                    V value = loaded.get(key);
+                    if (value != null) {
+                        found.put(key, value);
+                    } else {
+                        notFound.add(key);
+                    }
+                }
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+        return new Result<>(found, notFound, failure);
+    }
+
+    /** Stores a value the caller fetched itself, e.g. outside the cache because it had to be current. */
+    public void put(K key, V value) {
+        store(key, value);
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public Map<String, Object> stats() {
+        long now = System.nanoTime();
+        long oldest = 0;
+        long staleEntries = 0;
+        for (Entry<V> entry : entries.values()) {
+            long age = now - entry.loadedAt;
+            oldest = Math.max(oldest, age);
+            if (entry.value != null && age >= ttlNanos) {
+                staleEntries++;
+            }
+        }
+        double served = hits.count() + staleHits.count() + negativeHits.count();
+        double total = served + misses.count();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", (long) hits.count());
+        stats.put("staleHits", (long) staleHits.count());
+        stats.put("negativeHits", (long) negativeHits.count());
+        stats.put("misses", (long) misses.count());
+        stats.put("hitRatio", total > 0 ? served / total : 0.0);
+        stats.put("staleEntries", staleEntries);
+        stats.put("oldestEntryAgeMs", TimeUnit.NANOSECONDS.toMillis(oldest));
+        stats.put("maxServedAgeMs", servedAge.max());
+        stats.put("refreshesInProgress", refreshing.size());
+        stats.put("refreshFailures", (long) refreshFailures.count());
+        stats.put("evictions", (long) evictions.count());
+        return stats;
+    }
+
+    private Map<K, V> load(Set<K> keys, Function<Set<K>, Map<K, V>> loader) {
+        Map<K, V> loaded = loader.apply(keys);
+        for (K key : keys) {
+            store(key, loaded.get(key));
+        }
+        return loaded;
+    }
+
+    private void refreshInBackground(Set<K> stale, Function<Set<K>, Map<K, V>> loader) {
+        Set<K> claimed = new HashSet<>();
+        for (K key : stale) {
+            if (refreshing.add(key)) {
+                claimed.add(key);
+            }
+        }
+        if (claimed.isEmpty()) {
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                try {
+                    load(claimed, loader);
+                } catch (RuntimeException e) {
+                    // Keep serving the stale values; the next stale read tries again
+                    refreshFailures.increment();
+                } finally {
+                    refreshing.removeAll(claimed);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.removeAll(claimed);
+        }
+    }
+
+    private void store(K key, V value) {
+        entries.put(key, new Entry<>(value, System.nanoTime(), value != null ? ttlNanos + staleNanos : negativeTtlNanos));
+        if (entries.size() > maxSize) {
+            evict();
+        }
+    }
+
+    // Rare (only past maxSize): drop the expired entries, then the oldest ones down to 90% of the limit
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            List<Map.Entry<K, Entry<V>>> live = new ArrayList<>(entries.size());
+            for (Map.Entry<K, Entry<V>> e : entries.entrySet()) {
+                if (now - e.getValue().loadedAt >= e.getValue().expiresAfter) {
+                    if (entries.remove(e.getKey(), e.getValue())) {
+                        evictions.increment();
+                    }
+                } else {
+                    live.add(e);
+                }
+            }
+            int excess = entries.size() - maxSize * 9 / 10;
+            if (excess > 0) {
+                live.sort(Comparator.comparingLong(e -> e.getValue().loadedAt));
+                for (int i = 0; i < excess && i < live.size(); i++) {
+                    if (entries.remove(live.get(i).getKey(), live.get(i).getValue())) {
+                        evictions.increment();
+                    }
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * {@code failure} is set when the loader could not answer: the keys that are neither found nor
+     * notFound are then unknown.
+     */
+    public record Result<K, V>(Map<K, V> found, Set<K> notFound, RuntimeException failure) {
+
+        public static <K, V> Result<K, V> empty() {
+            return new Result<>(new HashMap<>(), Set.of(), null);
+        }
+    }
+
+    // value == null: the key does not exist
+    private record Entry<V>(V value, long loadedAt, long expiresAfter) {
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.demo.cache;
+
+import com.example.demo.model.Client;
+import com.example.demo.model.Produit;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class NearCacheConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public NearCache<Long, Produit> produitNearCache(@Value("${commande.cache.produits.max-size:10000}") int maxSize,
+                                                     @Value("${commande.cache.produits.ttl:30s}") Duration ttl,
+                                                     @Value("${commande.cache.produits.stale:5m}") Duration stale,
+                                                     @Value("${commande.cache.produits.negative-ttl:10s}") Duration negativeTtl,
+                                                     MeterRegistry meterRegistry) {
+        return new NearCache<>("produits", maxSize, ttl, stale, negativeTtl, meterRegistry);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public NearCache<Long, Client> clientNearCache(@Value("${commande.cache.clients.max-size:10000}") int maxSize,
+                                                   @Value("${commande.cache.clients.ttl:60s}") Duration ttl,
+                                                   @Value("${commande.cache.clients.stale:10m}") Duration stale,
+                                                   @Value("${commande.cache.clients.negative-ttl:10s}") Duration negativeTtl,
+                                                   MeterRegistry meterRegistry) {
+        return new NearCache<>("clients", maxSize, ttl, stale, negativeTtl, meterRegistry);
+    }
+}
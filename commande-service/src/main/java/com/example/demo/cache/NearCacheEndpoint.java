@@ -0,0 +1,38 @@
+package com.example.demo.cache;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * /actuator/nearcache: size, hit ratio and staleness of each near-cache.
+ * DELETE /actuator/nearcache/{name} empties one of them.
+ */
+@Component
+@Endpoint(id = "nearcache")
+public class NearCacheEndpoint {
+
+    private final List<NearCache<?, ?>> caches;
+
+    public NearCacheEndpoint(List<NearCache<?, ?>> caches) {
+        this.caches = caches;
+    }
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        caches.forEach(cache -> result.put(cache.name(), cache.stats()));
+        return result;
+    }
+
+    @DeleteOperation
+    public void invalidate(@Selector String name) {
+        caches.stream().filter(cache -> cache.name().equals(name)).forEach(NearCache::invalidateAll);
+    }
+}
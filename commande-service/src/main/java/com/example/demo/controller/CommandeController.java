@@ -1,22 +1,25 @@
 package com.example.demo.controller;
 
 import com.example.demo.dto.CommandeDTO;
-import com.example.demo.dto.ProductItemDTO;
 import com.example.demo.entities.Commande;
-import com.example.demo.entities.ProductItem;
-import com.example.demo.feign.ClientRestClient;
-import com.example.demo.feign.ProduitRestClient;
-import com.example.demo.model.Client;
-import com.example.demo.model.Produit;
+import com.example.demo.entities.CommandeSummary;
 import com.example.demo.repository.CommandeRepository;
-import com.example.demo.repository.ProductItemRepository;
+import com.example.demo.service.CommandeCreationService;
+import com.example.demo.service.CommandeEnricher;
+import com.example.demo.service.CommandeIntake;
+import com.example.demo.service.CommandeSummaryService;
 import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.net.URI;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
 
 import org.springaicommunity.mcp.annotation.McpTool;
 import org.springaicommunity.mcp.annotation.McpToolParam;
@@ -25,33 +28,29 @@ import org.springaicommunity.mcp.annotation.McpToolParam;
 @AllArgsConstructor
 public class CommandeController {
     private CommandeRepository commandeRepository;
-    private ProductItemRepository productItemRepository;
-    private ClientRestClient clientRestClient;
-    private ProduitRestClient produitRestClient;
+    private CommandeEnricher commandeEnricher;
+    private CommandeSummaryService commandeSummaryService;
+    private CommandeCreationService commandeCreationService;
+    private CommandeIntake commandeIntake;
 
     @GetMapping("/commandes")
     public List<Commande> all() {
         return commandeRepository.findAll();
     }
     
-    @McpTool(name = "getOrders", description = "Récupère la liste des 20 dernières commandes avec résumé: id, date, idClient, total, nbProduits")
+    @McpTool(name = "getOrders", description = "Récupère la liste des dernières commandes (20 par défaut) avec résumé: id, date, idClient, total, nbProduits")
     @GetMapping("/commandes/recent")
-    public List<Map<String, Object>> recentOrders() {
-        List<Commande> all = commandeRepository.findAll();
-        int size = all.size();
-        List<Commande> recent = all.subList(Math.max(0, size - 20), size);
-        
-        return recent.stream().map(c -> {
-            Map<String, Object> summary = new HashMap<>();
-            summary.put("id", c.getId());
-            summary.put("date", c.getDate());
-            summary.put("idClient", c.getIdClient());
-            summary.put("nbProduits", c.getProductItems() != null ? c.getProductItems().size() : 0);
-            double total = c.getProductItems() != null ? 
-                c.getProductItems().stream().mapToDouble(pi -> pi.getPrix() * pi.getQuantite()).sum() : 0;
-            summary.put("total", total);
-            return summary;
-        }).toList();
+    public List<CommandeSummary> recentOrders(
+            @McpToolParam(description = "Nombre de commandes", required = false) @RequestParam(required = false) Integer limit) {
+        return commandeSummaryService.recent(limit != null ? limit : 20);
+    }
+
+    // Dates as ISO-8601, e.g. 2024-05-01T00:00:00Z
+    @GetMapping("/commandes/summaries")
+    public List<CommandeSummary> summaries(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+                                           @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to,
+                                           @RequestParam(defaultValue = "100") int limit) {
+        return commandeSummaryService.between(from, to, limit);
     }
 
     @McpTool(name = "getOrderDetails", description = "Récupère les détails d'une commande (client + produits) via son ID")
@@ -60,48 +59,37 @@ public class CommandeController {
         Commande commande = commandeRepository.findById(id).orElse(null);
         if (commande == null) return null;
 
-        Client client = clientRestClient.findClientById(commande.getIdClient());
-        commande.setClient(client);
-
-        commande.getProductItems().forEach(pi -> {
-            Produit produit = produitRestClient.findProduitById(pi.getIdProduit());
-            pi.setProduit(produit);
-        });
-
-        return commande;
+        return commandeEnricher.enrich(commande);
     }
     
+    // "Prefer: respond-async" (when commande.intake.enabled): 202 right away, the order is written in the background
     @PostMapping("/commandes")
-    public Commande create(@RequestBody CommandeDTO commandeDTO) {
-        Commande commande = new Commande();
-        commande.setIdClient(commandeDTO.getIdClient());
-        commande.setDate(new Date());
-        Commande savedCommande = commandeRepository.save(commande);
-        
-        for (ProductItemDTO itemDTO : commandeDTO.getProductItems()) {
-            Produit produit = produitRestClient.findProduitById(itemDTO.getIdProduit());
-            
-            ProductItem productItem = new ProductItem();
-            productItem.setIdProduit(itemDTO.getIdProduit());
-            productItem.setQuantite(itemDTO.getQuantite());
-            productItem.setPrix(produit.getPrix());
-            productItem.setCommande(savedCommande);
-            productItemRepository.save(productItem);
+    public ResponseEntity<?> create(@RequestBody CommandeDTO commandeDTO,
+                                    @RequestHeader(value = "Prefer", required = false) String prefer) {
+        if (prefer == null || !prefer.contains("respond-async") || !commandeIntake.isEnabled()) {
+            return ResponseEntity.ok(commandeCreationService.create(commandeDTO));
+        }
+        Long id = commandeIntake.submit(commandeDTO);
+        if (id == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("erreur", "Trop de commandes en attente, réessayez dans un instant"));
+        }
+        // Relative to the request URI, so it stays right behind the gateway's /commande-service prefix
+        String statusUrl = "commandes/" + id + "/status";
+        return ResponseEntity.accepted().location(URI.create(statusUrl))
+                .body(Map.of("id", id, "etat", CommandeIntake.Etat.EN_ATTENTE, "status", statusUrl));
+    }
+
+    @GetMapping("/commandes/{id}/status")
+    public CommandeIntake.Status status(@PathVariable Long id) {
+        CommandeIntake.Status status = commandeIntake.status(id);
+        if (status != null) {
+            return status;
         }
-        
-        savedCommande = commandeRepository.findById(savedCommande.getId()).orElse(null);
-        if (savedCommande != null) {
-            Client client = clientRestClient.findClientById(savedCommande.getIdClient());
-            savedCommande.setClient(client);
-            
-            if (savedCommande.getProductItems() != null) {
-                savedCommande.getProductItems().forEach(pi -> {
-                    Produit produit = produitRestClient.findProduitById(pi.getIdProduit());
-                    pi.setProduit(produit);
-                });
-            }
+        // Written long ago, or by another instance
+        if (commandeRepository.existsById(id)) {
+            return new CommandeIntake.Status(id, CommandeIntake.Etat.CREEE, null, 0);
         }
-        
-        return savedCommande;
+        throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Commande " + id + " inconnue");
     }
 }
@@ -1,12 +1,14 @@
 package com.example.demo.entities;
 
 import com.example.demo.model.Client;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
@@ -24,6 +26,11 @@ public class Commande {
     @Transient
     private Client client;
 
+    // What could not be looked up while enriching this order (the data shown is a placeholder)
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<String> erreurs = new ArrayList<>();
+
     @OneToMany(mappedBy = "commande")
     private List<ProductItem> productItems;
 }
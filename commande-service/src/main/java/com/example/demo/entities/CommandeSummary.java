@@ -0,0 +1,27 @@
+package com.example.demo.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+// One row per order, written with it: lists of orders never touch commande or product_item
+@Entity
+@Table(name = "commande_summary", indexes = @Index(name = "idx_commande_summary_date", columnList = "date, id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommandeSummary {
+    // Same id as the order
+    @Id
+    private Long id;
+    private Date date;
+    private Long idClient;
+    private int nbProduits;
+    private double total;
+}
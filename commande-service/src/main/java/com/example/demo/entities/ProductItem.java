@@ -1,6 +1,7 @@
 package com.example.demo.entities;
 
 import com.example.demo.model.Produit;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -22,6 +23,11 @@ public class ProductItem {
     @Transient
     private Produit produit;
 
+    // Set when the product of this line could not be looked up
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String erreur;
+
     @ManyToOne
     @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private Commande commande;
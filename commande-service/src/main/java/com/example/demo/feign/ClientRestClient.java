@@ -16,7 +16,8 @@ public interface ClientRestClient {
     @CircuitBreaker(name = "client-service-cb", fallbackMethod = "getDefaultClient")
     Client findClientById(@PathVariable Long id);
 
-    @GetMapping("/clients")
+    // Every client, as before pagination existed
+    @GetMapping("/clients?unpaged=true")
     @CircuitBreaker(name = "client-service-cb", fallbackMethod = "getDefaultClients")
     List<Client> getClients();
 
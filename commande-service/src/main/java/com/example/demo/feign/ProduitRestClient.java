@@ -1,12 +1,15 @@
 package com.example.demo.feign;
 
 import com.example.demo.model.Produit;
+import com.example.demo.model.ProduitBatch;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 @FeignClient(name = "PRODUIT-SERVICE")
@@ -16,10 +19,14 @@ public interface ProduitRestClient {
     @CircuitBreaker(name = "produit-service-cb", fallbackMethod = "getDefaultProduit")
     Produit findProduitById(@PathVariable Long id);
 
-    @GetMapping("/produits")
+    // The whole catalog, as before pagination existed
+    @GetMapping("/produits?unpaged=true")
     @CircuitBreaker(name = "produit-service-cb", fallbackMethod = "getDefaultProduits")
     List<Produit> getProduits();
 
+    @GetMapping("/produits/batch")
+    @CircuitBreaker(name = "produit-service-cb", fallbackMethod = "getDefaultProduitBatch")
+    ProduitBatch findProduitsByIds(@RequestParam("ids") Collection<Long> ids);
 
     default Produit getDefaultProduit(Long id, Exception exception) {
         Produit produit = new Produit();
@@ -32,5 +39,9 @@ public interface ProduitRestClient {
     default List<Produit> getDefaultProduits(Exception exception) {
         return new ArrayList<>();
     }
+
+    default ProduitBatch getDefaultProduitBatch(Collection<Long> ids, Exception exception) {
+        return new ProduitBatch(new ArrayList<>(), new ArrayList<>(ids), true);
+    }
 }
 
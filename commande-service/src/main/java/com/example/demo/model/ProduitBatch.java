@@ -0,0 +1,18 @@
+package com.example.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProduitBatch {
+    private List<Produit> produits = new ArrayList<>();
+    private List<Long> missing = new ArrayList<>();
+    // Set by the circuit breaker fallback: "missing" then means "not checked", not "does not exist"
+    private boolean unavailable;
+}
@@ -0,0 +1,18 @@
+package com.example.demo.repository;
+
+import com.example.demo.entities.CommandeSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface CommandeSummaryRepository extends JpaRepository<CommandeSummary, Long> {
+
+    // Both read the (date, id) index backwards and stop after the requested number of rows
+    List<CommandeSummary> findByOrderByDateDescIdDesc(Pageable pageable);
+
+    List<CommandeSummary> findByDateBetweenOrderByDateDescIdDesc(Date from, Date to, Pageable pageable);
+}
@@ -0,0 +1,144 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.CommandeDTO;
+import com.example.demo.dto.ProductItemDTO;
+import com.example.demo.entities.Commande;
+import com.example.demo.entities.ProductItem;
+import com.example.demo.feign.ProduitRestClient;
+import com.example.demo.model.Produit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Creates orders in three steps:
+ * <ol>
+ *   <li>prices every line with one batch call to produit-service, before any transaction is open;</li>
+ *   <li>writes the orders, their lines and their summaries in a single transaction, each table with one
+ *       JDBC batch: an order is saved whole or not at all;</li>
+ *   <li>builds the response from what was written, and only looks up the client.</li>
+ * </ol>
+ * Order and line ids are reserved from their sequences beforehand, so the batches are not asked for
+ * generated keys and the driver can still send them as multi-row inserts. {@link CommandeIntake} uses
+ * the same steps for many orders at once.
+ */
+@Service
+public class CommandeCreationService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CommandeEnricher commandeEnricher;
+    private final CommandeSummaryService commandeSummaryService;
+    private final ProduitRestClient produitRestClient;
+    private final int idBlockSize;
+
+    private final Deque<Long> reservedIds = new ArrayDeque<>();
+
+    public CommandeCreationService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                   CommandeEnricher commandeEnricher, CommandeSummaryService commandeSummaryService,
+                                   ProduitRestClient produitRestClient,
+                                   @Value("${commande.id-block-size:50}") int idBlockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.commandeEnricher = commandeEnricher;
+        this.commandeSummaryService = commandeSummaryService;
+        this.produitRestClient = produitRestClient;
+        this.idBlockSize = idBlockSize;
+    }
+
+    public Commande create(CommandeDTO commandeDTO) {
+        Map<Long, Produit> produits = price(List.of(commandeDTO));
+        Commande commande = build(reserveId(), new Date(), commandeDTO, produits);
+        transactionTemplate.executeWithoutResult(status -> write(List.of(commande)));
+
+        // The products were just fetched for pricing: only the client lookup is left
+        return commandeEnricher.enrich(commande, produits);
+    }
+
+    /** One batch call for the distinct products of all these orders. */
+    public Map<Long, Produit> price(Collection<CommandeDTO> commandes) {
+        Set<Long> ids = new LinkedHashSet<>();
+        commandes.forEach(dto -> lines(dto).stream().map(ProductItemDTO::getIdProduit).filter(Objects::nonNull).forEach(ids::add));
+        return commandeEnricher.findProduits(ids);
+    }
+
+    public Commande build(long id, Date date, CommandeDTO commandeDTO, Map<Long, Produit> produits) {
+        Commande commande = new Commande();
+        commande.setId(id);
+        commande.setIdClient(commandeDTO.getIdClient());
+        commande.setDate(date);
+        List<ProductItem> items = new ArrayList<>();
+        for (ProductItemDTO line : lines(commandeDTO)) {
+            // Unknown or unreachable product: priced at 0 like the placeholder always was
+            Produit produit = produits.getOrDefault(line.getIdProduit(),
+                    produitRestClient.getDefaultProduit(line.getIdProduit(), null));
+            ProductItem item = new ProductItem();
+            item.setIdProduit(line.getIdProduit());
+            item.setQuantite(line.getQuantite());
+            item.setPrix(produit.getPrix());
+            item.setCommande(commande);
+            items.add(item);
+        }
+        commande.setProductItems(items);
+        return commande;
+    }
+
+    /** Next order id, taken from blocks reserved in the sequence: one query per {@code commande.id-block-size} orders. */
+    public synchronized long reserveId() {
+        if (reservedIds.isEmpty()) {
+            reservedIds.addAll(nextIds("commande", idBlockSize));
+        }
+        return reservedIds.removeFirst();
+    }
+
+    // Caller opens the transaction; orders carry their reserved ids
+    public void write(List<Commande> commandes) {
+        jdbcTemplate.batchUpdate("insert into commande (id, date, id_client) values (?, ?, ?)", commandes, commandes.size(),
+                (ps, commande) -> {
+                    ps.setLong(1, commande.getId());
+                    ps.setTimestamp(2, new Timestamp(commande.getDate().getTime()));
+                    ps.setObject(3, commande.getIdClient());
+                });
+
+        List<ProductItem> items = new ArrayList<>();
+        commandes.forEach(commande -> items.addAll(commande.getProductItems()));
+        if (!items.isEmpty()) {
+            List<Long> itemIds = nextIds("product_item", items.size());
+            for (int i = 0; i < items.size(); i++) {
+                items.get(i).setId(itemIds.get(i));
+            }
+            jdbcTemplate.batchUpdate("insert into product_item (id, id_produit, quantite, prix, commande_id) values (?, ?, ?, ?, ?)",
+                    items, items.size(), (ps, item) -> {
+                        ps.setLong(1, item.getId());
+                        ps.setObject(2, item.getIdProduit());
+                        ps.setInt(3, item.getQuantite());
+                        ps.setDouble(4, item.getPrix());
+                        ps.setLong(5, item.getCommande().getId());
+                    });
+        }
+
+        commandeSummaryService.recordAll(commandes);
+    }
+
+    private List<Long> nextIds(String table, int count) {
+        return jdbcTemplate.queryForList("select nextval(pg_get_serial_sequence(?, 'id')) from generate_series(1, ?)",
+                Long.class, table, count);
+    }
+
+    private static List<ProductItemDTO> lines(CommandeDTO commandeDTO) {
+        return commandeDTO.getProductItems() != null ? commandeDTO.getProductItems() : List.of();
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.demo.service;
+
+import com.example.demo.cache.NearCache;
+import com.example.demo.entities.Commande;
+import com.example.demo.entities.ProductItem;
+import com.example.demo.feign.ClientRestClient;
+import com.example.demo.feign.ProduitRestClient;
+import com.example.demo.model.Client;
+import com.example.demo.model.Produit;
+import com.example.demo.model.ProduitBatch;
+import feign.FeignException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Attaches the client and the products to an order. The client lookup and one batch lookup of the
+ * distinct product ids run concurrently, on a bounded pool, under one deadline. Whatever is not back
+ * by then is replaced by the usual placeholder and flagged ({@code erreurs} on the order, {@code erreur}
+ * on a line), so a slow service costs at most the deadline.
+ * <p>
+ * Both lookups go through a {@link NearCache}. Only real answers are cached: a client or a product that
+ * does not exist is, a circuit breaker placeholder ("Client Non Disponible", an unavailable batch) never is.
+ */
+@Service
+public class CommandeEnricher {
+    private final ClientRestClient clientRestClient;
+    private final ProduitRestClient produitRestClient;
+    private final NearCache<Long, Client> clientCache;
+    private final NearCache<Long, Produit> produitCache;
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+
+    public CommandeEnricher(ClientRestClient clientRestClient, ProduitRestClient produitRestClient,
+                            NearCache<Long, Client> clientCache, NearCache<Long, Produit> produitCache,
+                            @Value("${commande.enrichment.threads:16}") int threads,
+                            @Value("${commande.enrichment.queue-capacity:256}") int queueCapacity,
+                            @Value("${commande.enrichment.timeout:2s}") Duration timeout) {
+        this.clientRestClient = clientRestClient;
+        this.produitRestClient = produitRestClient;
+        this.clientCache = clientCache;
+        this.produitCache = produitCache;
+        this.timeout = timeout;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "commande-enrichment-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public Commande enrich(Commande commande) {
+        return enrich(commande, Map.of());
+    }
+
+    /** Same, reusing products the caller already looked up: only the others are fetched. */
+    public Commande enrich(Commande commande, Map<Long, Produit> known) {
+        List<ProductItem> items = commande.getProductItems() != null ? commande.getProductItems() : List.of();
+        Set<Long> ids = new LinkedHashSet<>();
+        items.stream().map(ProductItem::getIdProduit).filter(Objects::nonNull).forEach(ids::add);
+        ids.removeAll(known.keySet());
+
+        Long idClient = commande.getIdClient();
+        CompletableFuture<NearCache.Result<Long, Client>> client = idClient == null
+                ? CompletableFuture.completedFuture(NearCache.Result.empty())
+                : async(() -> clientCache.get(idClient, this::loadClients));
+        CompletableFuture<NearCache.Result<Long, Produit>> produits = ids.isEmpty()
+                ? CompletableFuture.completedFuture(NearCache.Result.empty())
+                : async(() -> produitCache.getAll(ids, this::loadProduits));
+
+        try {
+            CompletableFuture.allOf(client, produits).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            // Use whatever is done; the rest is flagged below
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (commande.getErreurs() == null) {
+            commande.setErreurs(new ArrayList<>());
+        }
+        NearCache.Result<Long, Client> clientResult = result(client);
+        Client found = clientResult != null ? clientResult.found().get(idClient) : null;
+        if (found != null) {
+            commande.setClient(found);
+        } else {
+            commande.setClient(clientRestClient.getDefaultClient(idClient, null));
+            commande.getErreurs().add(clientResult == null
+                    ? (client.isDone() ? "Client indisponible" : "Client : délai dépassé")
+                    : clientResult.failure() != null ? "Client indisponible" : "Client introuvable");
+        }
+
+        NearCache.Result<Long, Produit> produitResult = result(produits);
+        Map<Long, Produit> byId = new HashMap<>(known);
+        if (produitResult != null) {
+            byId.putAll(produitResult.found());
+        }
+        for (ProductItem item : items) {
+            Produit produit = byId.get(item.getIdProduit());
+            if (produit != null) {
+                item.setProduit(produit);
+                continue;
+            }
+            item.setProduit(produitRestClient.getDefaultProduit(item.getIdProduit(), null));
+            if (produitResult == null) {
+                item.setErreur(produits.isDone() ? "Service produit indisponible" : "Produit : délai dépassé");
+            } else {
+                item.setErreur(produitResult.notFound().contains(item.getIdProduit())
+                        ? "Produit introuvable" : "Service produit indisponible");
+            }
+        }
+        return commande;
+    }
+
+    /**
+     * Looks up the products of several ids at once, within the deadline; missing ones are left out.
+     * Used for pricing, so it always asks produit-service, and refreshes the cache with the answer.
+     */
+    public Map<Long, Produit> findProduits(Set<Long> ids) {
+        Map<Long, Produit> byId = new HashMap<>();
+        if (ids.isEmpty()) {
+            return byId;
+        }
+        CompletableFuture<ProduitBatch> produits = async(() -> produitRestClient.findProduitsByIds(ids));
+        try {
+            ProduitBatch batch = produits.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            batch.getProduits().forEach(p -> byId.put(p.getId(), p));
+            if (!batch.isUnavailable()) {
+                byId.forEach(produitCache::put);
+            }
+        } catch (TimeoutException | ExecutionException e) {
+            // Callers treat missing products the same way whatever the reason
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return byId;
+    }
+
+    private Map<Long, Client> loadClients(Set<Long> ids) {
+        Map<Long, Client> loaded = new HashMap<>();
+        for (Long id : ids) {
+            try {
+                Client client = clientRestClient.findClientById(id);
+                if (client != null && "Client Non Disponible".equals(client.getNom())) {
+                    throw new IllegalStateException("Client " + id + " : service client indisponible");
+                }
+                // client-service answers an empty body for an unknown id
+                if (client != null) {
+                    loaded.put(id, client);
+                }
+            } catch (RuntimeException e) {
+                if (!isNotFound(e)) {
+                    throw e;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private Map<Long, Produit> loadProduits(Set<Long> ids) {
+        ProduitBatch batch = produitRestClient.findProduitsByIds(ids);
+        if (batch.isUnavailable()) {
+            throw new IllegalStateException("Service produit indisponible");
+        }
+        Map<Long, Produit> loaded = new HashMap<>();
+        batch.getProduits().forEach(p -> loaded.put(p.getId(), p));
+        return loaded;
+    }
+
+    // The circuit breaker wraps the Feign exception
+    private static boolean isNotFound(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof FeignException.NotFound) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private <T> CompletableFuture<T> async(Supplier<T> call) {
+        try {
+            return CompletableFuture.supplyAsync(call, executor);
+        } catch (RuntimeException rejected) {
+            // Pool and queue full: fail this lookup rather than wait for a slot
+            return CompletableFuture.failedFuture(rejected);
+        }
+    }
+
+    private static <T> T result(CompletableFuture<T> future) {
+        return future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
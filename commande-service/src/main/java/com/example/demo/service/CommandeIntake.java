@@ -0,0 +1,231 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.CommandeDTO;
+import com.example.demo.entities.Commande;
+import com.example.demo.model.Produit;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous order intake, for checkout peaks: an order is given its id, put on a bounded queue and
+ * acknowledged at once; workers take the queue in batches of up to {@code commande.intake.batch-size},
+ * price the whole batch with one call and write it in one transaction (group commit). A full queue
+ * refuses the order instead of letting requests pile up.
+ * <p>
+ * The queue is in memory: orders accepted but not yet committed are lost if the process dies. Their
+ * status is kept for {@code commande.intake.status-retention} after they are written.
+ */
+@Service
+public class CommandeIntake {
+
+    private final CommandeCreationService commandeCreationService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long retentionNanos;
+
+    private final BlockingQueue<Pending> queue;
+    private final Map<Long, Status> statuses = new ConcurrentHashMap<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running = true;
+    private final AtomicLong lastCleanup = new AtomicLong(System.nanoTime());
+
+    private final Counter rejected;
+    private final Timer commitLatency;
+    private final Timer intakeLatency;
+    private final DistributionSummary batchSizes;
+
+    public CommandeIntake(CommandeCreationService commandeCreationService, TransactionTemplate transactionTemplate,
+                          @Value("${commande.intake.enabled:false}") boolean enabled,
+                          @Value("${commande.intake.queue-capacity:10000}") int queueCapacity,
+                          @Value("${commande.intake.workers:2}") int workerCount,
+                          @Value("${commande.intake.batch-size:200}") int batchSize,
+                          @Value("${commande.intake.status-retention:10m}") Duration statusRetention,
+                          MeterRegistry meterRegistry) {
+        this.commandeCreationService = commandeCreationService;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.retentionNanos = statusRetention.toNanos();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.rejected = meterRegistry.counter("commande.intake.rejected");
+        this.commitLatency = Timer.builder("commande.intake.commit")
+                .description("Time to write one batch of orders, transaction included")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.intakeLatency = Timer.builder("commande.intake.latency")
+                .description("Time from acceptance to commit of an order")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.batchSizes = meterRegistry.summary("commande.intake.batch.size");
+        Gauge.builder("commande.intake.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+
+        if (enabled) {
+            for (int i = 0; i < workerCount; i++) {
+                Thread worker = new Thread(this::work, "commande-intake-" + (i + 1));
+                worker.start();
+                workers.add(worker);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the id the order will have, or null if the queue is full, no id could be reserved
+     * (database unreachable) or the service is stopping.
+     */
+    public Long submit(CommandeDTO commandeDTO) {
+        if (!running) {
+            rejected.increment();
+            return null;
+        }
+        long id;
+        try {
+            id = commandeCreationService.reserveId();
+        } catch (DataAccessException e) {
+            rejected.increment();
+            return null;
+        }
+        Pending pending = new Pending(id, new Date(), commandeDTO, System.nanoTime());
+        statuses.put(pending.id(), Status.pending(pending.id()));
+        if (!queue.offer(pending)) {
+            statuses.remove(pending.id());
+            rejected.increment();
+            return null;
+        }
+        return pending.id();
+    }
+
+    /** Null if this instance does not know the id (never submitted here, or status already dropped). */
+    public Status status(long id) {
+        return statuses.get(id);
+    }
+
+    private void work() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                dropOldStatuses();
+                Pending first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Not a database error on a given order (those are handled in process): fail the batch, keep the worker
+                for (Pending pending : batch) {
+                    Status status = statuses.get(pending.id());
+                    if (status != null && status.etat() == Etat.EN_ATTENTE) {
+                        done(pending, Status.failed(pending.id(), e.getMessage()));
+                    }
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<Pending> batch) {
+        batchSizes.record(batch.size());
+        Map<Long, Produit> produits = commandeCreationService.price(batch.stream().map(Pending::commande).toList());
+        List<Commande> commandes = batch.stream()
+                .map(p -> commandeCreationService.build(p.id(), p.date(), p.commande(), produits))
+                .toList();
+
+        try {
+            commitLatency.record(() -> transactionTemplate.executeWithoutResult(status -> commandeCreationService.write(commandes)));
+            for (Pending pending : batch) {
+                done(pending, Status.created(pending.id()));
+            }
+        } catch (DataAccessException e) {
+            // One bad order must not fail the others: replay the batch one order per transaction
+            for (int i = 0; i < batch.size(); i++) {
+                Pending pending = batch.get(i);
+                Commande commande = commandes.get(i);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> commandeCreationService.write(List.of(commande)));
+                    done(pending, Status.created(pending.id()));
+                } catch (DataAccessException orderError) {
+                    done(pending, Status.failed(pending.id(), orderError.getMostSpecificCause().getMessage()));
+                }
+            }
+        }
+    }
+
+    private void done(Pending pending, Status status) {
+        statuses.put(pending.id(), status);
+        intakeLatency.record(System.nanoTime() - pending.acceptedAt(), TimeUnit.NANOSECONDS);
+    }
+
+    // At most once per second, whatever the number of workers
+    private void dropOldStatuses() {
+        long now = System.nanoTime();
+        long last = lastCleanup.get();
+        if (now - last < TimeUnit.SECONDS.toNanos(1) || !lastCleanup.compareAndSet(last, now)) {
+            return;
+        }
+        statuses.values().removeIf(s -> s.etat() != Etat.EN_ATTENTE && now - s.updatedAt() > retentionNanos);
+    }
+
+    // Stop accepting, then let the workers write what was already accepted
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    public enum Etat {
+        EN_ATTENTE, CREEE, ECHEC
+    }
+
+    public record Status(long id, Etat etat, @JsonInclude(JsonInclude.Include.NON_NULL) String erreur,
+                         @JsonIgnore long updatedAt) {
+
+        static Status pending(long id) {
+            return new Status(id, Etat.EN_ATTENTE, null, System.nanoTime());
+        }
+
+        static Status created(long id) {
+            return new Status(id, Etat.CREEE, null, System.nanoTime());
+        }
+
+        static Status failed(long id, String erreur) {
+            return new Status(id, Etat.ECHEC, erreur, System.nanoTime());
+        }
+    }
+
+    private record Pending(long id, Date date, CommandeDTO commande, long acceptedAt) {
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.service;
+
+import com.example.demo.entities.Commande;
+import com.example.demo.entities.CommandeSummary;
+import com.example.demo.entities.ProductItem;
+import com.example.demo.repository.CommandeSummaryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Maintains {@code commande_summary} (id, date, client, line count, total) next to the orders, so that
+ * "the latest orders" and "the orders of a period" are top-N reads on the date index, whatever the
+ * number of orders.
+ */
+@Service
+public class CommandeSummaryService {
+
+    private static final Logger log = LoggerFactory.getLogger(CommandeSummaryService.class);
+
+    public static final int MAX_LIMIT = 1000;
+
+    private final CommandeSummaryRepository commandeSummaryRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public CommandeSummaryService(CommandeSummaryRepository commandeSummaryRepository, JdbcTemplate jdbcTemplate) {
+        this.commandeSummaryRepository = commandeSummaryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Called in the transaction that writes the orders
+    public void recordAll(List<Commande> commandes) {
+        jdbcTemplate.batchUpdate("insert into commande_summary (id, date, id_client, nb_produits, total) values (?, ?, ?, ?, ?)",
+                commandes, commandes.size(), (ps, commande) -> {
+                    List<ProductItem> items = commande.getProductItems();
+                    ps.setLong(1, commande.getId());
+                    ps.setTimestamp(2, new Timestamp(commande.getDate().getTime()));
+                    ps.setObject(3, commande.getIdClient());
+                    ps.setInt(4, items.size());
+                    ps.setDouble(5, items.stream().mapToDouble(pi -> pi.getPrix() * pi.getQuantite()).sum());
+                });
+    }
+
+    /** The {@code limit} latest orders, oldest first (the order /commandes/recent always used). */
+    public List<CommandeSummary> recent(int limit) {
+        List<CommandeSummary> latest = new ArrayList<>(
+                commandeSummaryRepository.findByOrderByDateDescIdDesc(PageRequest.of(0, clamp(limit))));
+        Collections.reverse(latest);
+        return latest;
+    }
+
+    /** Orders between two dates (inclusive), latest first. */
+    public List<CommandeSummary> between(Date from, Date to, int limit) {
+        return commandeSummaryRepository.findByDateBetweenOrderByDateDescIdDesc(from, to, PageRequest.of(0, clamp(limit)));
+    }
+
+    // Orders written before this table existed (or by an instance that stopped half way): one set-based insert
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        int inserted = jdbcTemplate.update("""
+                insert into commande_summary (id, date, id_client, nb_produits, total)
+                select c.id, c.date, c.id_client, count(p.id), coalesce(sum(p.prix * p.quantite), 0)
+                from commande c left join product_item p on p.commande_id = c.id
+                where not exists (select 1 from commande_summary s where s.id = c.id)
+                group by c.id, c.date, c.id_client
+                on conflict (id) do nothing""");
+        if (inserted > 0) {
+            log.info("Backfilled {} order summaries", inserted);
+        }
+    }
+
+    private static int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NearCacheTests {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    // Even keys exist, odd keys do not
+    private final Function<Set<Long>, Map<Long, String>> loader = keys -> {
+        loads.incrementAndGet();
+        Map<Long, String> found = new HashMap<>();
+        keys.stream().filter(k -> k % 2 == 0).forEach(k -> found.put(k, "v" + k + "#" + loads.get()));
+        return found;
+    };
+
+    private NearCache<Long, String> cache(Duration ttl, Duration stale) {
+        return new NearCache<>("test", 100, ttl, stale, Duration.ofMinutes(1), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void servesHitsAndCachesMissingKeys() {
+        NearCache<Long, String> cache = cache(Duration.ofMinutes(1), Duration.ZERO);
+
+        NearCache.Result<Long, String> first = cache.getAll(List.of(2L, 3L), loader);
+        assertEquals(Map.of(2L, "v2#1"), first.found());
+        assertEquals(Set.of(3L), first.notFound());
+
+        NearCache.Result<Long, String> second = cache.getAll(List.of(2L, 3L), loader);
+        assertEquals(Map.of(2L, "v2#1"), second.found());
+        assertEquals(Set.of(3L), second.notFound());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void servesStaleValuesWhileReloadingInTheBackground() throws Exception {
+        NearCache<Long, String> cache = cache(Duration.ZERO, Duration.ofMinutes(1));
+
+        cache.get(2L, loader);
+        assertEquals("v2#1", cache.get(2L, loader).found().get(2L));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (cache.get(2L, loader).found().get(2L).equals("v2#1") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(loads.get() >= 2);
+        assertTrue(!cache.get(2L, loader).found().get(2L).equals("v2#1"));
+    }
+
+    @Test
+    void doesNotCacheFailures() {
+        NearCache<Long, String> cache = cache(Duration.ofMinutes(1), Duration.ZERO);
+
+        NearCache.Result<Long, String> failed = cache.get(2L, keys -> {
+            throw new IllegalStateException("indisponible");
+        });
+        assertNotNull(failed.failure());
+        assertTrue(failed.found().isEmpty() && failed.notFound().isEmpty());
+
+        assertEquals("v2#1", cache.get(2L, loader).found().get(2L));
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.CommandeDTO;
+import com.example.demo.dto.ProductItemDTO;
+import com.example.demo.entities.Commande;
+import com.example.demo.entities.ProductItem;
+import com.example.demo.feign.ClientRestClient;
+import com.example.demo.feign.ProduitRestClient;
+import com.example.demo.model.Client;
+import com.example.demo.model.Produit;
+import com.example.demo.model.ProduitBatch;
+import com.example.demo.repository.CommandeRepository;
+import com.example.demo.repository.ProductItemRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * The previous creation path (one save and one product call per line, then a re-read) versus
+ * {@link CommandeCreationService}, for orders of 1, 10 and 100 lines, against the configured database.
+ * produit-service and client-service are mocked, so only the database work is compared.
+ * Opt-in: ./benchmark-postgres.sh commande-service CommandeCreationBenchmarkTests [-Dbenchmark.orders=200]
+ * (or mvn -pl commande-service test -Dbenchmark=true against the configured database); results in the README.
+ */
+// SQL logging would dominate the timings; no registration with Eureka
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "eureka.client.enabled=false"})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CommandeCreationBenchmarkTests {
+
+    private static final Logger log = LoggerFactory.getLogger(CommandeCreationBenchmarkTests.class);
+    private static final long CLIENT = -4242L;
+
+    @MockBean
+    private ProduitRestClient produitRestClient;
+    @MockBean
+    private ClientRestClient clientRestClient;
+
+    @Autowired
+    private CommandeCreationService commandeCreationService;
+    @Autowired
+    private CommandeRepository commandeRepository;
+    @Autowired
+    private ProductItemRepository productItemRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void mockServices() {
+        when(produitRestClient.findProduitById(anyLong())).thenAnswer(call -> produit(call.getArgument(0)));
+        when(produitRestClient.findProduitsByIds(any())).thenAnswer(call -> {
+            List<Produit> produits = new ArrayList<>();
+            for (Long id : call.<Collection<Long>>getArgument(0)) {
+                produits.add(produit(id));
+            }
+            return new ProduitBatch(produits, new ArrayList<>(), false);
+        });
+        when(clientRestClient.findClientById(anyLong())).thenAnswer(call -> {
+            Client client = new Client();
+            client.setId(call.getArgument(0));
+            client.setNom("Bench");
+            return client;
+        });
+    }
+
+    @Test
+    void pipelineAgainstPreviousPath() {
+        int orders = Integer.getInteger("benchmark.orders", 200);
+        for (int lines : new int[]{1, 10, 100}) {
+            CommandeDTO dto = order(lines);
+            // Warm-up of both paths
+            for (int i = 0; i < 10; i++) {
+                previousPath(dto);
+                commandeCreationService.create(dto);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < orders; i++) {
+                previousPath(dto);
+            }
+            long previous = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < orders; i++) {
+                assertEquals(lines, commandeCreationService.create(dto).getProductItems().size());
+            }
+            long pipeline = System.nanoTime() - start;
+
+            log.info("{} lines: previous {} orders/s, pipeline {} orders/s",
+                    lines, Math.round(orders / (previous / 1e9)), Math.round(orders / (pipeline / 1e9)));
+        }
+    }
+
+    // CommandeController.create before the pipeline
+    private Commande previousPath(CommandeDTO dto) {
+        Commande commande = new Commande();
+        commande.setIdClient(dto.getIdClient());
+        commande.setDate(new Date());
+        Commande saved = commandeRepository.save(commande);
+        for (ProductItemDTO line : dto.getProductItems()) {
+            Produit produit = produitRestClient.findProduitById(line.getIdProduit());
+            ProductItem item = new ProductItem();
+            item.setIdProduit(line.getIdProduit());
+            item.setQuantite(line.getQuantite());
+            item.setPrix(produit.getPrix());
+            item.setCommande(saved);
+            productItemRepository.save(item);
+        }
+        // The re-read ran with the request's open session (open-in-view): lines are loaded lazily
+        long id = saved.getId();
+        return transactionTemplate.execute(status -> {
+            Commande reloaded = commandeRepository.findById(id).orElseThrow();
+            reloaded.setClient(clientRestClient.findClientById(reloaded.getIdClient()));
+            reloaded.getProductItems().forEach(pi -> pi.setProduit(produitRestClient.findProduitById(pi.getIdProduit())));
+            return reloaded;
+        });
+    }
+
+    private static CommandeDTO order(int lines) {
+        CommandeDTO dto = new CommandeDTO();
+        dto.setIdClient(CLIENT);
+        List<ProductItemDTO> items = new ArrayList<>();
+        for (long i = 1; i <= lines; i++) {
+            ProductItemDTO item = new ProductItemDTO();
+            item.setIdProduit(i);
+            item.setQuantite(2);
+            items.add(item);
+        }
+        dto.setProductItems(items);
+        return dto;
+    }
+
+    private static Produit produit(long id) {
+        return new Produit(id, "Produit " + id, 10.0 + id);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from product_item where commande_id in (select id from commande where id_client = ?)", CLIENT);
+        jdbcTemplate.update("delete from commande_summary where id_client = ?", CLIENT);
+        jdbcTemplate.update("delete from commande where id_client = ?", CLIENT);
+    }
+}
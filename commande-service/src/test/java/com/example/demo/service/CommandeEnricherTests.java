@@ -0,0 +1,93 @@
+package com.example.demo.service;
+
+import com.example.demo.cache.NearCache;
+import com.example.demo.entities.Commande;
+import com.example.demo.entities.ProductItem;
+import com.example.demo.feign.ClientRestClient;
+import com.example.demo.feign.ProduitRestClient;
+import com.example.demo.model.Client;
+import com.example.demo.model.Produit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** produit-service and client-service down: their circuit breakers answer with placeholders. */
+class CommandeEnricherTests {
+
+    private final ClientRestClient clientRestClient = mock(ClientRestClient.class);
+    private final ProduitRestClient produitRestClient = mock(ProduitRestClient.class);
+    private final NearCache<Long, Client> clientCache = cache("clients");
+    private final NearCache<Long, Produit> produitCache = cache("produits");
+    private final CommandeEnricher enricher = new CommandeEnricher(clientRestClient, produitRestClient,
+            clientCache, produitCache, 2, 10, Duration.ofSeconds(2));
+
+    CommandeEnricherTests() {
+        when(clientRestClient.getDefaultClient(any(), any())).thenCallRealMethod();
+        when(produitRestClient.getDefaultProduit(any(), any())).thenCallRealMethod();
+        when(produitRestClient.getDefaultProduitBatch(any(), any())).thenCallRealMethod();
+        when(clientRestClient.findClientById(anyLong()))
+                .thenAnswer(call -> clientRestClient.getDefaultClient(call.getArgument(0), null));
+        when(produitRestClient.findProduitsByIds(any()))
+                .thenAnswer(call -> produitRestClient.getDefaultProduitBatch(call.getArgument(0), null));
+    }
+
+    private static <V> NearCache<Long, V> cache(String name) {
+        return new NearCache<>(name, 100, Duration.ofMinutes(5), Duration.ZERO, Duration.ofMinutes(1),
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void stop() {
+        enricher.shutdown();
+        clientCache.shutdown();
+        produitCache.shutdown();
+    }
+
+    private static Commande commande() {
+        Commande commande = new Commande();
+        commande.setIdClient(1L);
+        ProductItem item = new ProductItem();
+        item.setIdProduit(10L);
+        item.setQuantite(1);
+        commande.setProductItems(List.of(item));
+        return commande;
+    }
+
+    @Test
+    void flagsPlaceholdersWithoutCachingThem() {
+        for (int i = 0; i < 2; i++) {
+            Commande commande = enricher.enrich(commande());
+
+            assertEquals("Client Non Disponible", commande.getClient().getNom());
+            assertEquals(List.of("Client indisponible"), commande.getErreurs());
+            ProductItem item = commande.getProductItems().get(0);
+            assertEquals("Produit Non Disponible", item.getProduit().getNom());
+            assertEquals("Service produit indisponible", item.getErreur());
+        }
+
+        assertEquals(0, clientCache.stats().get("size"));
+        assertEquals(0, produitCache.stats().get("size"));
+        // Asked again the second time
+        verify(clientRestClient, times(2)).findClientById(1L);
+        verify(produitRestClient, times(2)).findProduitsByIds(any());
+    }
+
+    @Test
+    void pricingDoesNotCacheAnUnavailableBatch() {
+        assertTrue(enricher.findProduits(Set.of(10L)).isEmpty());
+        assertEquals(0, produitCache.stats().get("size"));
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.CommandeDTO;
+import com.example.demo.entities.Commande;
+import com.example.demo.service.CommandeIntake.Etat;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CommandeIntakeTests {
+
+    private final CommandeCreationService creation = mock(CommandeCreationService.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final AtomicLong ids = new AtomicLong();
+    private CommandeIntake intake;
+
+    // The worker takes the first order alone and waits while the test queues the next ones
+    private final CountDownLatch pricing = new CountDownLatch(1);
+    private final CountDownLatch queued = new CountDownLatch(1);
+
+    CommandeIntakeTests() {
+        when(creation.reserveId()).thenAnswer(invocation -> ids.incrementAndGet());
+        when(creation.price(any())).thenAnswer(invocation -> {
+            pricing.countDown();
+            queued.await(5, TimeUnit.SECONDS);
+            return Map.of();
+        });
+        when(creation.build(anyLong(), any(Date.class), any(CommandeDTO.class), anyMap())).thenAnswer(invocation -> {
+            Commande commande = new Commande();
+            commande.setId(invocation.getArgument(0));
+            commande.setProductItems(new ArrayList<>());
+            return commande;
+        });
+    }
+
+    private CommandeIntake intake(boolean enabled, int queueCapacity) {
+        intake = new CommandeIntake(creation, new TransactionTemplate(transactionManager), enabled, queueCapacity, 1, 10,
+                Duration.ofMinutes(10), new SimpleMeterRegistry());
+        return intake;
+    }
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        queued.countDown();
+        intake.shutdown();
+    }
+
+    private Etat awaitDone(long id) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (intake.status(id).etat() == Etat.EN_ATTENTE && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return intake.status(id).etat();
+    }
+
+    private static boolean hasIds(List<Commande> commandes, Long... expected) {
+        return commandes.stream().map(Commande::getId).toList().equals(List.of(expected));
+    }
+
+    @Test
+    void refusesOrdersWhenTheQueueIsFull() {
+        // No workers: nothing leaves the queue
+        CommandeIntake intake = intake(false, 2);
+
+        assertNotNull(intake.submit(new CommandeDTO()));
+        assertNotNull(intake.submit(new CommandeDTO()));
+        assertNull(intake.submit(new CommandeDTO()));
+        assertNull(intake.status(3L));
+    }
+
+    @Test
+    void refusesOrdersWhenNoIdCanBeReserved() {
+        CommandeIntake intake = intake(false, 2);
+        when(creation.reserveId()).thenThrow(new QueryTimeoutException("database unreachable"));
+
+        assertNull(intake.submit(new CommandeDTO()));
+    }
+
+    @Test
+    void writesABatchInOneTransaction() throws InterruptedException {
+        CommandeIntake intake = intake(true, 100);
+
+        long first = intake.submit(new CommandeDTO());
+        pricing.await(5, TimeUnit.SECONDS);
+        List<Long> batch = List.of(intake.submit(new CommandeDTO()), intake.submit(new CommandeDTO()),
+                intake.submit(new CommandeDTO()));
+        queued.countDown();
+
+        assertEquals(Etat.CREEE, awaitDone(first));
+        for (long id : batch) {
+            assertEquals(Etat.CREEE, awaitDone(id));
+        }
+        verify(creation).write(argThat(commandes -> hasIds(commandes, 2L, 3L, 4L)));
+        // One transaction for the first order, one for the batch
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void replaysABatchOrderByOrderWhenTheDatabaseRejectsIt() throws InterruptedException {
+        CommandeIntake intake = intake(true, 100);
+        doThrow(new DataIntegrityViolationException("batch"))
+                .when(creation).write(argThat(commandes -> hasIds(commandes, 2L, 3L, 4L)));
+        doThrow(new DataIntegrityViolationException("commande 3"))
+                .when(creation).write(argThat(commandes -> hasIds(commandes, 3L)));
+
+        intake.submit(new CommandeDTO());
+        pricing.await(5, TimeUnit.SECONDS);
+        intake.submit(new CommandeDTO());
+        intake.submit(new CommandeDTO());
+        intake.submit(new CommandeDTO());
+        queued.countDown();
+
+        assertEquals(Etat.CREEE, awaitDone(2));
+        assertEquals(Etat.ECHEC, awaitDone(3));
+        assertEquals(Etat.CREEE, awaitDone(4));
+        assertEquals("commande 3", intake.status(3).erreur());
+        verify(creation).write(argThat(commandes -> hasIds(commandes, 2L)));
+        verify(creation).write(argThat(commandes -> hasIds(commandes, 4L)));
+    }
+}
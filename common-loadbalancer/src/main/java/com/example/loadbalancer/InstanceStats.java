@@ -0,0 +1,72 @@
+package com.example.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Latency and load of one service instance: a peak-sensitive EWMA of response times
+ * that decays with time, and the number of requests currently sent to it.
+ */
+public class InstanceStats {
+
+    private final long decayNanos;
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    private double ewmaNanos;
+    private long lastUpdate = System.nanoTime();
+
+    InstanceStats(long decayNanos) {
+        this.decayNanos = decayNanos;
+    }
+
+    void start() {
+        outstanding.incrementAndGet();
+    }
+
+    void complete(long latencyNanos) {
+        outstanding.updateAndGet(n -> n > 0 ? n - 1 : 0);
+        if (latencyNanos < 0) {
+            return;
+        }
+        synchronized (this) {
+            long now = System.nanoTime();
+            double current = decayed(now);
+            if (latencyNanos > current) {
+                // React to a slow instance immediately, recover gradually
+                ewmaNanos = latencyNanos;
+            } else {
+                double w = Math.exp(-(double) (now - lastUpdate) / decayNanos);
+                ewmaNanos = current * w + latencyNanos * (1 - w);
+            }
+            lastUpdate = now;
+        }
+    }
+
+    /**
+     * Lower is better. An instance that has not answered for a while drifts back towards zero,
+     * so it gets probed again instead of being starved forever.
+     */
+    public double score() {
+        long now = System.nanoTime();
+        int inFlight = outstanding.get();
+        synchronized (this) {
+            if (inFlight > 0 && now - lastUpdate > 3 * decayNanos) {
+                // Requests cancelled without a completion callback would otherwise leak here
+                outstanding.set(0);
+                inFlight = 0;
+            }
+            return decayed(now) * (inFlight + 1);
+        }
+    }
+
+    public synchronized double latencyMillis() {
+        return decayed(System.nanoTime()) / 1_000_000d;
+    }
+
+    public int outstanding() {
+        return outstanding.get();
+    }
+
+    private double decayed(long now) {
+        return ewmaNanos * Math.exp(-(double) (now - lastUpdate) / decayNanos);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.loadbalancer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared by every load balancer child context, so stats survive per-service context creation
+ * and the scores are published once per instance.
+ */
+public class InstanceStatsRegistry {
+
+    private final Map<String, InstanceStats> stats = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final long decayNanos;
+
+    public InstanceStatsRegistry(MeterRegistry meterRegistry, Duration decay) {
+        this.meterRegistry = meterRegistry;
+        this.decayNanos = decay.toNanos();
+    }
+
+    public InstanceStats get(ServiceInstance instance) {
+        String key = instance.getServiceId() + "/" + instance.getHost() + ":" + instance.getPort();
+        return stats.computeIfAbsent(key, k -> register(instance));
+    }
+
+    public Map<String, InstanceStats> snapshot() {
+        return Map.copyOf(stats);
+    }
+
+    private InstanceStats register(ServiceInstance instance) {
+        InstanceStats instanceStats = new InstanceStats(decayNanos);
+        if (meterRegistry != null) {
+            String service = instance.getServiceId() != null ? instance.getServiceId().toLowerCase() : "unknown";
+            String address = instance.getHost() + ":" + instance.getPort();
+            Gauge.builder("loadbalancer.instance.score", instanceStats, InstanceStats::score)
+                    .tag("service", service).tag("instance", address).register(meterRegistry);
+            Gauge.builder("loadbalancer.instance.latency", instanceStats, InstanceStats::latencyMillis)
+                    .tag("service", service).tag("instance", address).baseUnit("milliseconds").register(meterRegistry);
+            Gauge.builder("loadbalancer.instance.outstanding", instanceStats, InstanceStats::outstanding)
+                    .tag("service", service).tag("instance", address).register(meterRegistry);
+        }
+        return instanceStats;
+    }
+}
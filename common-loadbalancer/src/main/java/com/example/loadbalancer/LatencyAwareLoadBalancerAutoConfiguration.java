@@ -0,0 +1,32 @@
+package com.example.loadbalancer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Bean;
+
+import java.time.Duration;
+
+/**
+ * Replaces the default round-robin balancer for every service looked up through
+ * Spring Cloud LoadBalancer (gateway lb:// routes and Feign clients alike).
+ */
+@AutoConfiguration
+@ConditionalOnProperty(name = "loadbalancer.latency-aware.enabled", matchIfMissing = true)
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfiguration.class)
+public class LatencyAwareLoadBalancerAutoConfiguration {
+
+    @Bean
+    public InstanceStatsRegistry instanceStatsRegistry(ObjectProvider<MeterRegistry> meterRegistry,
+                                                       @Value("${loadbalancer.latency-aware.decay:10s}") Duration decay) {
+        return new InstanceStatsRegistry(meterRegistry.getIfAvailable(), decay);
+    }
+
+    @Bean
+    public InstanceStatsLifecycle instanceStatsLifecycle(InstanceStatsRegistry instanceStatsRegistry) {
+        return new InstanceStatsLifecycle(instanceStatsRegistry);
+    }
+}
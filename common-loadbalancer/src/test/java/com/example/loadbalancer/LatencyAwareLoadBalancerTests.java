@@ -0,0 +1,43 @@
+package com.example.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyAwareLoadBalancerTests {
+
+	private final InstanceStatsRegistry registry = new InstanceStatsRegistry(null, Duration.ofSeconds(10));
+	private final LatencyAwareLoadBalancer loadBalancer = new LatencyAwareLoadBalancer("PRODUIT-SERVICE", null, registry);
+
+	private final ServiceInstance fast = new DefaultServiceInstance("fast", "PRODUIT-SERVICE", "10.0.0.1", 9081, false);
+	private final ServiceInstance slow = new DefaultServiceInstance("slow", "PRODUIT-SERVICE", "10.0.0.2", 9081, false);
+
+	@Test
+	void prefersTheFasterOfTwoInstances() {
+		registry.get(fast).complete(Duration.ofMillis(5).toNanos());
+		registry.get(slow).complete(Duration.ofMillis(800).toNanos());
+
+		for (int i = 0; i < 100; i++) {
+			assertEquals(fast, loadBalancer.choose(List.of(fast, slow)).getServer());
+		}
+	}
+
+	@Test
+	void outstandingRequestsRaiseTheScore() {
+		registry.get(fast).complete(Duration.ofMillis(10).toNanos());
+		registry.get(slow).complete(Duration.ofMillis(10).toNanos());
+		double idle = registry.get(fast).score();
+
+		registry.get(fast).start();
+		registry.get(fast).start();
+
+		assertTrue(registry.get(fast).score() > idle);
+		assertEquals(slow, loadBalancer.choose(List.of(fast, slow)).getServer());
+	}
+}
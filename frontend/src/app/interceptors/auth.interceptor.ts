@@ -1,6 +1,6 @@
 import { Injectable } from '@angular/core';
-import { HttpInterceptor, HttpRequest, HttpHandler, HttpEvent } from '@angular/common/http';
-import { Observable } from 'rxjs';
+import { HttpInterceptor, HttpRequest, HttpHandler, HttpEvent, HttpErrorResponse } from '@angular/common/http';
+import { Observable, catchError, switchMap, throwError } from 'rxjs';
 import { AuthService } from '../services/auth.service';
 
 @Injectable()
@@ -8,16 +8,35 @@ export class AuthInterceptor implements HttpInterceptor {
   constructor(private readonly authService: AuthService) {}
 
   intercept(req: HttpRequest<any>, next: HttpHandler): Observable<HttpEvent<any>> {
-    const token = this.authService.getToken();
-    
-    if (token && !req.url.includes('/login') && !req.url.includes('/users')) {
-      req = req.clone({
-        setHeaders: {
-          Authorization: `Bearer ${token}`
-        }
-      });
+    if (req.url.includes('/login') || req.url.includes('/refresh') || req.url.includes('/users')) {
+      return next.handle(req);
     }
-    
-    return next.handle(req);
+
+    const sentToken = this.authService.getToken();
+    return next.handle(this.withToken(req)).pipe(
+      catchError(error => {
+        if (error instanceof HttpErrorResponse && error.status === 401 && this.authService.getRefreshToken()) {
+          // Another request refreshed the token in the meantime: just replay with the new one
+          if (this.authService.getToken() !== sentToken) {
+            return next.handle(this.withToken(req));
+          }
+          // Access token expired: refresh it once (shared with the other requests) and replay the request.
+          // Only a failed refresh logs out; an error of the replayed request is the caller's business.
+          return this.authService.refresh().pipe(
+            catchError(refreshError => {
+              this.authService.logout();
+              return throwError(() => refreshError);
+            }),
+            switchMap(() => next.handle(this.withToken(req)))
+          );
+        }
+        return throwError(() => error);
+      })
+    );
+  }
+
+  private withToken(req: HttpRequest<any>): HttpRequest<any> {
+    const token = this.authService.getToken();
+    return token ? req.clone({ setHeaders: { Authorization: `Bearer ${token}` } }) : req;
   }
 }
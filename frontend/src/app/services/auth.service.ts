@@ -1,9 +1,10 @@
 import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
-import { BehaviorSubject, Observable, tap } from 'rxjs';
+import { BehaviorSubject, Observable, finalize, shareReplay, tap } from 'rxjs';
 
 export interface LoginResponse {
   'access-token': string;
+  'refresh-token': string;
 }
 
 export interface User {
@@ -25,6 +26,8 @@ export interface JwtPayload {
 export class AuthService {
   private readonly apiUrl = 'http://localhost:8888/auth-service';
   private readonly tokenKey = 'jwt_token';
+  private readonly refreshTokenKey = 'refresh_token';
+  private refreshInProgress$: Observable<LoginResponse> | null = null;
   private readonly isAuthenticatedSubject = new BehaviorSubject<boolean>(this.hasToken());
 
   isAuthenticated$ = this.isAuthenticatedSubject.asObservable();
@@ -34,27 +37,57 @@ export class AuthService {
   login(username: string, password: string): Observable<LoginResponse> {
     return this.http.post<LoginResponse>(`${this.apiUrl}/login`, { username, password }).pipe(
       tap(response => {
-        this.setToken(response['access-token']);
+        this.setTokens(response);
         this.isAuthenticatedSubject.next(true);
       })
     );
   }
 
+  /**
+   * Get a new access token with the stored refresh token (no password needed)
+   */
+  refresh(): Observable<LoginResponse> {
+    // Requests failing together share one refresh: a refresh token used twice counts as stolen
+    if (!this.refreshInProgress$) {
+      this.refreshInProgress$ = this.http.post<LoginResponse>(`${this.apiUrl}/refresh`, { 'refresh-token': this.getRefreshToken() }).pipe(
+        tap(response => this.setTokens(response)),
+        finalize(() => this.refreshInProgress$ = null),
+        shareReplay(1)
+      );
+    }
+    return this.refreshInProgress$;
+  }
+
   register(user: User): Observable<any> {
     return this.http.post(`${this.apiUrl}/users`, user);
   }
 
   logout(): void {
+    const token = this.getToken();
+    const refreshToken = this.getRefreshToken();
     localStorage.removeItem(this.tokenKey);
+    localStorage.removeItem(this.refreshTokenKey);
     this.isAuthenticatedSubject.next(false);
+
+    // Revoke the tokens server side too, so a copied token stops working right away
+    if (token) {
+      this.http.post(`${this.apiUrl}/logout`, { 'refresh-token': refreshToken }, {
+        headers: { Authorization: `Bearer ${token}` }
+      }).subscribe({ error: () => {} });
+    }
   }
 
   getToken(): string | null {
     return localStorage.getItem(this.tokenKey);
   }
 
-  private setToken(token: string): void {
-    localStorage.setItem(this.tokenKey, token);
+  getRefreshToken(): string | null {
+    return localStorage.getItem(this.refreshTokenKey);
+  }
+
+  private setTokens(response: LoginResponse): void {
+    localStorage.setItem(this.tokenKey, response['access-token']);
+    localStorage.setItem(this.refreshTokenKey, response['refresh-token']);
   }
 
   private hasToken(): boolean {
@@ -20,7 +20,7 @@ export class ClientService {
   constructor(private readonly http: HttpClient) {}
 
   getClients(): Observable<Client[]> {
-    return this.http.get<Client[]>(this.apiUrl);
+    return this.http.get<Client[]>(this.apiUrl, { params: { unpaged: 'true' } });
   }
 
   getClient(id: number): Observable<Client> {
@@ -19,7 +19,7 @@ export class ProductService {
   constructor(private readonly http: HttpClient) {}
 
   getProducts(): Observable<Product[]> {
-    return this.http.get<Product[]>(this.apiUrl);
+    return this.http.get<Product[]>(this.apiUrl, { params: { unpaged: 'true' } });
   }
 
   getProduct(id: number): Observable<Product> {
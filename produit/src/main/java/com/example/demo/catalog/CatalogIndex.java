@@ -0,0 +1,200 @@
+package com.example.demo.catalog;
+
+import com.example.demo.produits.Produit;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Search structures over one snapshot, built once and never modified.
+ * <ul>
+ *   <li>names: every (normalized token, product) pair in a token-sorted array, so a prefix is a
+ *       binary search to the first candidate followed by a short scan;</li>
+ *   <li>prices: a sorted {@code double[]} with the matching product positions, so a range is two
+ *       binary searches.</li>
+ * </ul>
+ * Products are referred to by their position in the snapshot's id-sorted array.
+ */
+final class CatalogIndex {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final Produit[] produits;
+    private final String[] sortKeys;
+
+    private final String[] tokens;
+    private final int[] tokenPostings;
+
+    private final double[] prices;
+    private final int[] pricePostings;
+
+    CatalogIndex(Produit[] produits) {
+        this.produits = produits;
+        this.sortKeys = new String[produits.length];
+
+        List<TokenPosting> pairs = new ArrayList<>();
+        for (int i = 0; i < produits.length; i++) {
+            sortKeys[i] = normalize(produits[i].getNom());
+            for (String token : tokenize(produits[i].getNom())) {
+                pairs.add(new TokenPosting(token, i));
+            }
+        }
+        pairs.sort(Comparator.comparing(TokenPosting::token).thenComparingInt(TokenPosting::position));
+        this.tokens = new String[pairs.size()];
+        this.tokenPostings = new int[pairs.size()];
+        for (int i = 0; i < pairs.size(); i++) {
+            tokens[i] = pairs.get(i).token();
+            tokenPostings[i] = pairs.get(i).position();
+        }
+
+        Integer[] byPrice = new Integer[produits.length];
+        for (int i = 0; i < byPrice.length; i++) {
+            byPrice[i] = i;
+        }
+        Arrays.sort(byPrice, Comparator.comparingDouble(i -> produits[i].getPrix()));
+        this.prices = new double[produits.length];
+        this.pricePostings = new int[produits.length];
+        for (int i = 0; i < byPrice.length; i++) {
+            prices[i] = produits[byPrice[i]].getPrix();
+            pricePostings[i] = byPrice[i];
+        }
+    }
+
+    /**
+     * Every query token must prefix-match a token of the name; bounds are inclusive and null means open.
+     */
+    List<Produit> search(String query, Double minPrix, Double maxPrix, Sort sort, int limit) {
+        BitSet matches = new BitSet(produits.length);
+        matches.set(0, produits.length);
+
+        if (query != null) {
+            for (String prefix : tokenize(query)) {
+                matches.and(prefixMatches(prefix));
+            }
+        }
+        if (minPrix != null || maxPrix != null) {
+            matches.and(priceMatches(minPrix != null ? minPrix : Double.NEGATIVE_INFINITY,
+                    maxPrix != null ? maxPrix : Double.POSITIVE_INFINITY));
+        }
+
+        if (sort == Sort.ID) {
+            // Positions are already in id order: stop as soon as the limit is reached
+            List<Produit> result = new ArrayList<>(Math.min(limit, matches.cardinality()));
+            for (int i = matches.nextSetBit(0); i >= 0 && result.size() < limit; i = matches.nextSetBit(i + 1)) {
+                result.add(produits[i]);
+            }
+            return result;
+        }
+        if (sort == Sort.PRIX || sort == Sort.PRIX_DESC) {
+            // Walk the price index in the requested direction instead of sorting the matches
+            List<Produit> result = new ArrayList<>(Math.min(limit, matches.cardinality()));
+            for (int k = 0; k < pricePostings.length && result.size() < limit; k++) {
+                int position = pricePostings[sort == Sort.PRIX ? k : pricePostings.length - 1 - k];
+                if (matches.get(position)) {
+                    result.add(produits[position]);
+                }
+            }
+            return result;
+        }
+        return matches.stream().boxed()
+                .sorted(sort == Sort.NOM
+                        ? Comparator.comparing((Integer i) -> sortKeys[i])
+                        : Comparator.comparing((Integer i) -> sortKeys[i]).reversed())
+                .limit(limit)
+                .map(i -> produits[i])
+                .toList();
+    }
+
+    private BitSet prefixMatches(String prefix) {
+        BitSet found = new BitSet(produits.length);
+        int from = lowerBound(prefix);
+        for (int i = from; i < tokens.length && tokens[i].startsWith(prefix); i++) {
+            found.set(tokenPostings[i]);
+        }
+        return found;
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = tokens.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tokens[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private BitSet priceMatches(double min, double max) {
+        BitSet found = new BitSet(produits.length);
+        int from = firstAtLeast(min);
+        for (int i = from; i < prices.length && prices[i] <= max; i++) {
+            found.set(pricePostings[i]);
+        }
+        return found;
+    }
+
+    private int firstAtLeast(double value) {
+        int low = 0;
+        int high = prices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // "Écran 27 pouces" -> "ecran 27 pouces"
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> result = new ArrayList<>();
+        for (String token : SEPARATORS.split(normalize(text))) {
+            if (!token.isEmpty() && !result.contains(token)) {
+                result.add(token);
+            }
+        }
+        return result;
+    }
+
+    enum Sort {
+        ID, NOM, NOM_DESC, PRIX, PRIX_DESC;
+
+        /** Accepts "nom", "-nom", "prix", "-prix" and "id"; anything else sorts by id. */
+        static Sort parse(String value) {
+            if (value == null) {
+                return ID;
+            }
+            return switch (value.trim().toLowerCase(Locale.ROOT)) {
+                case "nom" -> NOM;
+                case "-nom" -> NOM_DESC;
+                case "prix" -> PRIX;
+                case "-prix" -> PRIX_DESC;
+                default -> ID;
+            };
+        }
+    }
+
+    private record TokenPosting(String token, int position) {
+    }
+}
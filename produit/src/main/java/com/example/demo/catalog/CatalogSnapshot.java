@@ -0,0 +1,108 @@
+package com.example.demo.catalog;
+
+import com.example.demo.produits.Produit;
+import com.example.demo.produits.ProduitBatch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable view of the whole catalog at one version. Products are sorted by id, and the id index is a
+ * plain {@code long[]} searched with a binary search, so a lookup neither boxes nor locks. The JSON of
+ * the full list and the search index are built once per version.
+ */
+public final class CatalogSnapshot {
+
+    private final long version;
+    private final long changeVersion;
+    private final long[] ids;
+    private final Produit[] produits;
+    private final List<Produit> list;
+    private final byte[] json;
+    private final CatalogIndex index;
+
+    CatalogSnapshot(long version, long changeVersion, Produit[] sortedById, byte[] json) {
+        this.version = version;
+        this.changeVersion = changeVersion;
+        this.produits = sortedById;
+        this.ids = new long[sortedById.length];
+        for (int i = 0; i < sortedById.length; i++) {
+            ids[i] = sortedById[i].getId();
+        }
+        this.list = List.of(sortedById);
+        this.json = json;
+        this.index = new CatalogIndex(sortedById);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    /** Position in the {@link ChangeFeed} this snapshot includes: follow the feed from there. */
+    public long changeVersion() {
+        return changeVersion;
+    }
+
+    public Produit get(long id) {
+        int index = Arrays.binarySearch(ids, id);
+        return index >= 0 ? produits[index] : null;
+    }
+
+    /**
+     * Products whose name has a token starting with each word of {@code query} (case and accent
+     * insensitive), priced within the inclusive bounds. {@code sort} is one of nom, -nom, prix, -prix, id.
+     */
+    public List<Produit> search(String query, Double minPrix, Double maxPrix, String sort, int limit) {
+        return index.search(query, minPrix, maxPrix, CatalogIndex.Sort.parse(sort), limit);
+    }
+
+    /** Up to {@code limit} products with an id greater than {@code after} (from the start when null). */
+    public List<Produit> page(Long after, int limit) {
+        int from = 0;
+        if (after != null) {
+            int index = Arrays.binarySearch(ids, after);
+            from = index >= 0 ? index + 1 : -index - 1;
+        }
+        return list.subList(from, Math.min(from + limit, produits.length));
+    }
+
+    /** Looks up each distinct id once; the answer keeps the order of the first occurrence of each id. */
+    public ProduitBatch getAll(Collection<Long> requested) {
+        List<Produit> found = new ArrayList<>(requested.size());
+        List<Long> missing = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (Long id : requested) {
+            if (id == null || !seen.add(id)) {
+                continue;
+            }
+            Produit produit = get(id);
+            if (produit != null) {
+                found.add(produit);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new ProduitBatch(found, missing);
+    }
+
+    public List<Produit> all() {
+        return list;
+    }
+
+    /** Serialized {@link #all()}, shared between requests: callers must not modify it. */
+    public byte[] json() {
+        return json;
+    }
+
+    public int size() {
+        return produits.length;
+    }
+
+    Produit[] produits() {
+        return produits;
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.demo.catalog;
+
+import com.example.demo.produits.Produit;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Ordered feed of catalog changes, each with its own version. The last {@code catalog.changes.capacity}
+ * changes are kept in a ring buffer; a consumer that is further behind (or that read the feed of a
+ * previous run, see {@link #epoch}) is told to resync, i.e. reload the full list and continue from the
+ * version returned with it.
+ * <p>
+ * Changes are published by {@link ProduitCatalog} under its write lock, so there is a single writer.
+ * Waiting consumers are woken up from a separate thread, never from the writer. Each SSE subscriber is
+ * written to from its own sender task, so a slow client only delays itself; one whose write has been
+ * blocked for more than {@code catalog.changes.send-timeout-ms} is dropped (its EventSource reconnects
+ * with Last-Event-ID, or resyncs if it fell out of the ring meanwhile).
+ */
+@Component
+public class ChangeFeed {
+
+    private final String epoch = UUID.randomUUID().toString();
+    private final AtomicReferenceArray<Change> ring;
+    private volatile long version;
+    private final AtomicBoolean notificationPending = new AtomicBoolean();
+
+    private final ConcurrentLinkedQueue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Subscriber> subscribers = new ConcurrentLinkedQueue<>();
+    private final ExecutorService notifier = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "catalog-change-notifier");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService senders = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "catalog-change-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final long sendTimeoutNanos;
+
+    public ChangeFeed(@Value("${catalog.changes.capacity:4096}") int capacity,
+                      @Value("${catalog.changes.send-timeout-ms:10000}") long sendTimeoutMillis) {
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+    }
+
+    /** Identifies this run of the service: versions restart from zero when it changes. */
+    public String epoch() {
+        return epoch;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    // Caller holds the catalog write lock
+    void publish(String type, long produitId, Produit produit) {
+        long next = version + 1;
+        ring.set((int) (next % ring.length()), new Change(next, type, produitId, produit));
+        version = next;
+        // A burst of changes (an import, a reload) wakes consumers up once, not once per change
+        if (notificationPending.compareAndSet(false, true)) {
+            notifier.execute(this::notifyConsumers);
+        }
+    }
+
+    public Batch changesSince(long since, int limit) {
+        long latest = version;
+        if (since > latest || since < latest - ring.length()) {
+            return new Batch(epoch, latest, true, List.of());
+        }
+        List<Change> changes = new ArrayList<>((int) Math.min(latest - since, limit));
+        for (long v = since + 1; v <= latest && changes.size() < limit; v++) {
+            Change change = ring.get((int) (v % ring.length()));
+            if (change == null || change.version() != v) {
+                // Overwritten while we were reading: the consumer fell too far behind
+                return new Batch(epoch, latest, true, List.of());
+            }
+            changes.add(change);
+        }
+        long reached = changes.isEmpty() ? since : changes.get(changes.size() - 1).version();
+        return new Batch(epoch, reached, false, changes);
+    }
+
+    /** Completes as soon as there is something after {@code since}, or with an empty batch on timeout. */
+    public DeferredResult<Batch> poll(long since, int limit, long timeoutMillis) {
+        DeferredResult<Batch> result = new DeferredResult<>(timeoutMillis, () -> changesSince(since, limit));
+        if (version != since) {
+            result.setResult(changesSince(since, limit));
+            return result;
+        }
+        Waiter waiter = new Waiter(since, limit, result);
+        waiters.add(waiter);
+        result.onCompletion(() -> waiters.remove(waiter));
+        // A change published between the check and the registration would otherwise wait for the timeout
+        if (version != since) {
+            result.setResult(changesSince(since, limit));
+        }
+        return result;
+    }
+
+    public SseEmitter subscribe(long since, long timeoutMillis) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, since);
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        schedule(subscriber);
+        return emitter;
+    }
+
+    private void notifyConsumers() {
+        notificationPending.set(false);
+        Waiter waiter;
+        while ((waiter = waiters.poll()) != null) {
+            waiter.result().setResult(changesSince(waiter.since(), waiter.limit()));
+        }
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long sendingSince = subscriber.sendingSince;
+            if (sendingSince != 0 && now - sendingSince > sendTimeoutNanos) {
+                // Only flagged here: completing the emitter would wait for the blocked send
+                subscribers.remove(subscriber);
+                subscriber.dropped = true;
+            } else {
+                schedule(subscriber);
+            }
+        }
+    }
+
+    // At most one sender task per subscriber, so its position is never updated concurrently
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            send(subscriber);
+        } finally {
+            subscriber.scheduled.set(false);
+        }
+        // A change published while we were sending could not schedule another task
+        if (!subscriber.dropped && subscriber.position < version) {
+            schedule(subscriber);
+        }
+    }
+
+    private void send(Subscriber subscriber) {
+        try {
+            Batch batch = changesSince(subscriber.position, Integer.MAX_VALUE);
+            if (batch.resync()) {
+                send(subscriber, SseEmitter.event().name("resync").id(eventId(batch.version())).data(batch));
+                subscriber.position = batch.version();
+            } else {
+                for (Change change : batch.changes()) {
+                    if (subscriber.dropped) {
+                        break;
+                    }
+                    send(subscriber, SseEmitter.event().name("change").id(eventId(change.version())).data(change));
+                    subscriber.position = change.version();
+                }
+            }
+            if (subscriber.dropped) {
+                subscriber.emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(subscriber);
+            subscriber.dropped = true;
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+
+    private static void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        subscriber.sendingSince = System.nanoTime();
+        try {
+            subscriber.emitter.send(event);
+        } finally {
+            subscriber.sendingSince = 0;
+        }
+    }
+
+    /**
+     * Feed position a consumer wants to continue from. A position from another epoch (the service
+     * restarted since) cannot be trusted and maps to a position that forces a resync.
+     */
+    public long positionOf(String consumerEpoch, long since) {
+        return consumerEpoch == null || consumerEpoch.equals(epoch) ? since : Long.MAX_VALUE;
+    }
+
+    // SSE event ids carry the epoch, so Last-Event-ID from before a restart is recognized
+    private String eventId(long version) {
+        return epoch + ":" + version;
+    }
+
+    /** Parses a Last-Event-ID sent back by an EventSource; null if absent or malformed. */
+    public Long positionOfEventId(String lastEventId) {
+        if (lastEventId == null) {
+            return null;
+        }
+        int separator = lastEventId.lastIndexOf(':');
+        try {
+            return positionOf(separator > 0 ? lastEventId.substring(0, separator) : "",
+                    Long.parseLong(lastEventId.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        notifier.shutdownNow();
+        senders.shutdownNow();
+        subscribers.forEach(s -> s.emitter.complete());
+    }
+
+    /** {@code produit} is the new state, null for a deletion. */
+    public record Change(long version, String type, long produitId, Produit produit) {
+        public static final String CREATED = "CREATED";
+        public static final String UPDATED = "UPDATED";
+        public static final String DELETED = "DELETED";
+    }
+
+    /** {@code version} is where to continue from; when {@code resync} is set, reload everything first. */
+    public record Batch(String epoch, long version, boolean resync, List<Change> changes) {
+    }
+
+    private record Waiter(long since, int limit, DeferredResult<Batch> result) {
+    }
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        volatile long position;
+        // System.nanoTime() when the pending write started, 0 when not writing
+        volatile long sendingSince;
+        volatile boolean dropped;
+
+        Subscriber(SseEmitter emitter, long position) {
+            this.emitter = emitter;
+            this.position = position;
+        }
+    }
+}
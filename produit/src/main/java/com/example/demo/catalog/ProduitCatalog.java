@@ -0,0 +1,167 @@
+package com.example.demo.catalog;
+
+import com.example.demo.produits.Produit;
+import com.example.demo.repository.ProduitRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * Read model of the product catalog. Reads go to the current {@link CatalogSnapshot} (a volatile read,
+ * no database, no lock). Writes go to the database first, then publish a new snapshot; writers are
+ * serialized by a lock that readers never take. A periodic reload picks up changes made by other
+ * instances or directly in the database.
+ */
+@Service
+public class ProduitCatalog {
+
+    private final ProduitRepository produitRepository;
+    private final ObjectMapper objectMapper;
+    private final ChangeFeed changeFeed;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile CatalogSnapshot snapshot;
+
+    public ProduitCatalog(ProduitRepository produitRepository, ObjectMapper objectMapper, ChangeFeed changeFeed) {
+        this.produitRepository = produitRepository;
+        this.objectMapper = objectMapper;
+        this.changeFeed = changeFeed;
+    }
+
+    public CatalogSnapshot snapshot() {
+        CatalogSnapshot current = snapshot;
+        return current != null ? current : reload();
+    }
+
+    public Produit create(String nom, double prix) {
+        writeLock.lock();
+        try {
+            Produit saved = produitRepository.save(new Produit(0, nom, prix));
+            Produit copy = copy(saved);
+            publish(produits -> {
+                Produit[] next = Arrays.copyOf(produits, produits.length + 1);
+                next[produits.length] = copy;
+                return next;
+            });
+            return copy;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /** Returns null when there is no product with this id. */
+    public Produit update(long id, String nom, double prix) {
+        writeLock.lock();
+        try {
+            Produit produit = produitRepository.findById(id).orElse(null);
+            if (produit == null) {
+                return null;
+            }
+            produit.setNom(nom);
+            produit.setPrix(prix);
+            Produit copy = copy(produitRepository.save(produit));
+            publish(produits -> {
+                Produit[] next = Arrays.stream(produits).filter(p -> p.getId() != id).toArray(Produit[]::new);
+                next = Arrays.copyOf(next, next.length + 1);
+                next[next.length - 1] = copy;
+                return next;
+            });
+            return copy;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void delete(long id) {
+        writeLock.lock();
+        try {
+            produitRepository.deleteById(id);
+            publish(produits -> Arrays.stream(produits).filter(p -> p.getId() != id).toArray(Produit[]::new));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.reload-interval-ms:60000}", initialDelayString = "${catalog.reload-interval-ms:60000}")
+    public CatalogSnapshot reload() {
+        writeLock.lock();
+        try {
+            Produit[] fromDb = produitRepository.findAll().stream().map(ProduitCatalog::copy).toArray(Produit[]::new);
+            Arrays.sort(fromDb, Comparator.comparingLong(Produit::getId));
+            CatalogSnapshot current = snapshot;
+            if (current != null && Arrays.equals(current.produits(), fromDb)) {
+                // Nothing changed: keep the version so clients caching on it are not invalidated
+                return current;
+            }
+            return swap(fromDb);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private void publish(UnaryOperator<Produit[]> change) {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            reload();
+            return;
+        }
+        Produit[] next = change.apply(current.produits());
+        Arrays.sort(next, Comparator.comparingLong(Produit::getId));
+        swap(next);
+    }
+
+    private CatalogSnapshot swap(Produit[] sortedById) {
+        CatalogSnapshot current = snapshot;
+        long version = current != null ? current.version() + 1 : 1;
+        if (current != null) {
+            publishChanges(current.produits(), sortedById);
+        }
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(List.of(sortedById));
+            CatalogSnapshot next = new CatalogSnapshot(version, changeFeed.version(), sortedById, json);
+            snapshot = next;
+            return next;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the catalog", e);
+        }
+    }
+
+    // Both arrays are sorted by id: one merge pass finds what was created, updated and deleted
+    private void publishChanges(Produit[] before, Produit[] after) {
+        int i = 0;
+        int j = 0;
+        while (i < before.length || j < after.length) {
+            long oldId = i < before.length ? before[i].getId() : Long.MAX_VALUE;
+            long newId = j < after.length ? after[j].getId() : Long.MAX_VALUE;
+            if (oldId == newId) {
+                if (!before[i].equals(after[j])) {
+                    changeFeed.publish(ChangeFeed.Change.UPDATED, newId, after[j]);
+                }
+                i++;
+                j++;
+            } else if (oldId < newId) {
+                changeFeed.publish(ChangeFeed.Change.DELETED, oldId, null);
+                i++;
+            } else {
+                changeFeed.publish(ChangeFeed.Change.CREATED, newId, after[j]);
+                j++;
+            }
+        }
+    }
+
+    // Snapshots hold their own instances: nothing outside can change them behind the index's back
+    private static Produit copy(Produit produit) {
+        return new Produit(produit.getId(), produit.getNom(), produit.getPrix());
+    }
+}
@@ -0,0 +1,359 @@
+package com.example.demo.catalog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Upserts products from a CSV or NDJSON stream. The input is read one line at a time and written in
+ * JDBC batches of {@code catalog.import.batch-size}, each in its own transaction, so memory use does
+ * not depend on the size of the file. Progress and per-line errors are written as NDJSON while the
+ * import runs.
+ * <p>
+ * A row with an id updates that product; a row without one updates the product with the same name, or
+ * creates it. Ids are only assigned by the database, so an id that is not in the table is reported as an
+ * error rather than created: leave it empty to create the product. Names are not unique: a name shared by
+ * several products is reported as an error for the row, which then needs an id. Every row ends up
+ * inserted, updated or failed.
+ * <p>
+ * The catalog is reloaded once, when the import is over: products written meanwhile are not kept in
+ * memory, and the catalog is not rebuilt once per batch.
+ */
+@Service
+public class ProduitImporter {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProduitCatalog produitCatalog;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    public ProduitImporter(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate,
+                           TransactionTemplate transactionTemplate, ProduitCatalog produitCatalog,
+                           ObjectMapper objectMapper,
+                           @Value("${catalog.import.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.produitCatalog = produitCatalog;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    public void importProduits(InputStream input, boolean csv, OutputStream progress) throws IOException {
+        Report report = new Report(progress);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        CsvFormat format = null;
+        List<Row> batch = new ArrayList<>(batchSize);
+        Set<String> batchNames = new HashSet<>();
+
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (csv && format == null) {
+                format = CsvFormat.detect(line);
+                if (format.hasHeader()) {
+                    continue;
+                }
+            }
+            report.received++;
+            Row row;
+            try {
+                row = csv ? format.parse(lineNumber, line) : parseJson(lineNumber, line);
+            } catch (IllegalArgumentException | IOException e) {
+                report.error(lineNumber, e.getMessage());
+                continue;
+            }
+            // A name seen twice goes to the next batch, where it is an update of the product just created
+            if ((row.id == null && batchNames.contains(row.nom)) || batch.size() >= batchSize) {
+                write(batch, report);
+                batch.clear();
+                batchNames.clear();
+            }
+            batch.add(row);
+            if (row.id == null) {
+                batchNames.add(row.nom);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch, report);
+        }
+        // Also publishes the changes to the change feed
+        if (report.inserted + report.updated > 0) {
+            produitCatalog.reload();
+        }
+        report.done();
+    }
+
+    private Row parseJson(int lineNumber, String line) throws IOException {
+        JsonNode node = objectMapper.readTree(line);
+        JsonNode id = node.get("id");
+        JsonNode prix = node.get("prix");
+        if (prix == null || !prix.isNumber()) {
+            throw new IllegalArgumentException("Prix manquant ou invalide");
+        }
+        return Row.of(lineNumber, id != null && !id.isNull() ? id.asLong() : null, node.path("nom").asText(null), prix.asDouble());
+    }
+
+    private void write(List<Row> batch, Report report) throws IOException {
+        try {
+            transactionTemplate.executeWithoutResult(status -> upsert(batch));
+            for (Row row : batch) {
+                report.add(row);
+            }
+        } catch (DataAccessException e) {
+            // Find the offending rows: replay the batch one row per transaction
+            for (Row row : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> upsert(List.of(row)));
+                    report.add(row);
+                } catch (DataAccessException rowError) {
+                    report.error(row.line, rowError.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        report.progress();
+    }
+
+    // Sets, on every row, either its error or whether it was inserted
+    private void upsert(List<Row> batch) {
+        List<Row> byId = new ArrayList<>();
+        Map<String, Row> byName = new LinkedHashMap<>();
+        for (Row row : batch) {
+            row.error = null;
+            row.inserted = false;
+            if (row.id != null) {
+                byId.add(row);
+            } else {
+                byName.put(row.nom, row);
+            }
+        }
+
+        if (!byId.isEmpty()) {
+            int[] counts = jdbcTemplate.batchUpdate("update produit set nom = ?, prix = ? where id = ?", byId, byId.size(),
+                    (ps, row) -> {
+                        ps.setString(1, row.nom);
+                        ps.setDouble(2, row.prix);
+                        ps.setLong(3, row.id);
+                    })[0];
+            for (int i = 0; i < counts.length; i++) {
+                Row row = byId.get(i);
+                if (counts[i] == 0) {
+                    row.error = "Produit " + row.id + " introuvable (sans id, le produit est créé)";
+                }
+            }
+        }
+
+        if (byName.isEmpty()) {
+            return;
+        }
+        // nom is not unique: a row without id only updates a product if it is the only one with that name
+        Map<String, long[]> existing = new HashMap<>();
+        namedJdbcTemplate.query("select nom, count(*), min(id) from produit where nom in (:noms) group by nom",
+                Map.of("noms", byName.keySet()), rs -> {
+                    existing.put(rs.getString(1), new long[]{rs.getLong(2), rs.getLong(3)});
+                });
+        List<Object[]> toUpdate = new ArrayList<>();
+        List<Row> toInsert = new ArrayList<>();
+        for (Row row : byName.values()) {
+            long[] match = existing.get(row.nom);
+            if (match == null) {
+                toInsert.add(row);
+            } else if (match[0] > 1) {
+                row.error = match[0] + " produits s'appellent \"" + row.nom + "\" : précisez l'id";
+            } else {
+                toUpdate.add(new Object[]{row.prix, match[1]});
+            }
+        }
+        if (!toUpdate.isEmpty()) {
+            jdbcTemplate.batchUpdate("update produit set prix = ? where id = ?", toUpdate);
+        }
+        if (!toInsert.isEmpty()) {
+            jdbcTemplate.batchUpdate("insert into produit (nom, prix) values (?, ?)", toInsert, toInsert.size(),
+                    (ps, row) -> {
+                        ps.setString(1, row.nom);
+                        ps.setDouble(2, row.prix);
+                    });
+            toInsert.forEach(row -> row.inserted = true);
+        }
+    }
+
+    static final class Row {
+        final int line;
+        final Long id;
+        final String nom;
+        final double prix;
+        String error;
+        boolean inserted;
+
+        private Row(int line, Long id, String nom, double prix) {
+            this.line = line;
+            this.id = id;
+            this.nom = nom;
+            this.prix = prix;
+        }
+
+        static Row of(int line, Long id, String nom, double prix) {
+            if (nom == null || nom.isBlank()) {
+                throw new IllegalArgumentException("Nom manquant");
+            }
+            if (Double.isNaN(prix) || prix < 0) {
+                throw new IllegalArgumentException("Prix invalide : " + prix);
+            }
+            return new Row(line, id, nom.trim(), prix);
+        }
+    }
+
+    /**
+     * Column layout of a CSV file, taken from its first line: "id,nom,prix" or "nom,prix" headers (any
+     * order, any case), or no header at all, in which case the columns are nom then prix. A ';' separator
+     * implies decimal commas, as in spreadsheet exports with French settings.
+     */
+    record CsvFormat(char separator, boolean hasHeader, int idColumn, int nomColumn, int prixColumn) {
+
+        static CsvFormat detect(String firstLine) {
+            // Spreadsheet exports may start with a byte order mark
+            String header = firstLine.startsWith("\uFEFF") ? firstLine.substring(1) : firstLine;
+            char separator = header.indexOf(';') >= 0 ? ';' : ',';
+            List<String> columns = split(header, separator).stream()
+                    .map(column -> column.strip().toLowerCase(Locale.ROOT))
+                    .toList();
+            int nom = columns.indexOf("nom");
+            int prix = columns.indexOf("prix");
+            if (nom >= 0 && prix >= 0) {
+                return new CsvFormat(separator, true, columns.indexOf("id"), nom, prix);
+            }
+            return new CsvFormat(separator, false, -1, 0, 1);
+        }
+
+        Row parse(int lineNumber, String line) {
+            List<String> fields = split(line, separator);
+            if (fields.size() <= Math.max(nomColumn, prixColumn)) {
+                throw new IllegalArgumentException("Colonnes manquantes");
+            }
+            String id = idColumn >= 0 && idColumn < fields.size() ? fields.get(idColumn) : "";
+            String prix = fields.get(prixColumn);
+            if (separator == ';') {
+                prix = prix.replace(',', '.');
+            }
+            try {
+                return Row.of(lineNumber, id.isBlank() ? null : Long.valueOf(id.trim()), fields.get(nomColumn),
+                        Double.parseDouble(prix.trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Nombre invalide : " + e.getMessage());
+            }
+        }
+
+        // Double quotes around a field allow the separator inside it, "" stands for a quote
+        static List<String> split(String line, char separator) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == separator) {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    private final class Report {
+        private final OutputStream out;
+        int received;
+        int inserted;
+        int updated;
+        int failed;
+
+        Report(OutputStream out) {
+            this.out = out;
+        }
+
+        void add(Row row) throws IOException {
+            if (row.error != null) {
+                error(row.line, row.error);
+                return;
+            }
+            if (row.inserted) {
+                inserted++;
+            } else {
+                updated++;
+            }
+        }
+
+        void error(int line, String message) throws IOException {
+            failed++;
+            Map<String, Object> event = new LinkedHashMap<>();
+            event.put("type", "error");
+            event.put("line", line);
+            event.put("error", message);
+            write(event);
+        }
+
+        void progress() throws IOException {
+            write(counters("progress"));
+            out.flush();
+        }
+
+        void done() throws IOException {
+            write(counters("done"));
+            out.flush();
+        }
+
+        private Map<String, Object> counters(String type) {
+            Map<String, Object> event = new LinkedHashMap<>();
+            event.put("type", type);
+            event.put("received", received);
+            event.put("inserted", inserted);
+            event.put("updated", updated);
+            event.put("failed", failed);
+            return event;
+        }
+
+        private void write(Map<String, Object> event) throws IOException {
+            out.write(objectMapper.writeValueAsBytes(event));
+            out.write('\n');
+        }
+    }
+}
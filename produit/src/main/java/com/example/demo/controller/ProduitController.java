@@ -1,11 +1,27 @@
 package com.example.demo.controller;
 
+import com.example.demo.catalog.CatalogSnapshot;
+import com.example.demo.catalog.ChangeFeed;
+import com.example.demo.catalog.ProduitCatalog;
+import com.example.demo.catalog.ProduitImporter;
 import com.example.demo.produits.Produit;
-import com.example.demo.repository.ProduitRepository;
+import com.example.demo.produits.ProduitBatch;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.springaicommunity.mcp.annotation.McpTool;
 import org.springaicommunity.mcp.annotation.McpToolParam;
@@ -13,18 +29,104 @@ import org.springaicommunity.mcp.annotation.McpToolParam;
 @AllArgsConstructor
 @RestController
 public class ProduitController {
-    private ProduitRepository produitRepository;
+    private static final Set<String> PRODUIT_FIELDS = Set.of("id", "nom", "prix");
 
-    @McpTool(name = "getProducts", description = "Récupère la liste de tous les produits")
+    private ProduitCatalog produitCatalog;
+    private ProduitImporter produitImporter;
+    private ChangeFeed changeFeed;
+
+    /**
+     * Pages in id order: pass the X-Next-Cursor header back as "after" (no header means last page);
+     * "fields" keeps only some attributes, e.g. fields=nom,prix. unpaged=true returns the whole catalog,
+     * its JSON rendered once per catalog version.
+     */
     @GetMapping("/produits")
-    public List<Produit> all() {
-        return produitRepository.findAll();
+    public ResponseEntity<?> all(@RequestParam(required = false) Long after,
+                                 @RequestParam(defaultValue = "100") int limit,
+                                 @RequestParam(required = false) List<String> fields,
+                                 @RequestParam(defaultValue = "false") boolean unpaged) {
+        CatalogSnapshot snapshot = produitCatalog.snapshot();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-Catalog-Version", Long.toString(snapshot.version()))
+                // Where to follow /produits/changes from to keep this list up to date
+                .header("X-Change-Epoch", changeFeed.epoch())
+                .header("X-Change-Version", Long.toString(snapshot.changeVersion()));
+        if (unpaged) {
+            return response.body(snapshot.json());
+        }
+
+        int size = Math.max(1, Math.min(limit, 1000));
+        List<Produit> page = snapshot.page(after, size);
+        if (page.size() == size) {
+            response.header("X-Next-Cursor", Long.toString(page.get(page.size() - 1).getId()));
+        }
+        if (fields == null || fields.isEmpty()) {
+            return response.body(page);
+        }
+        for (String field : fields) {
+            if (!PRODUIT_FIELDS.contains(field)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Champ inconnu : " + field);
+            }
+        }
+        return response.body(page.stream().map(p -> project(p, fields)).toList());
+    }
+
+    @McpTool(name = "getProducts", description = "Récupère la liste de tous les produits")
+    public List<Produit> getProducts() {
+        return produitCatalog.snapshot().all();
+    }
+
+    @McpTool(name = "searchProducts", description = "Recherche des produits par nom (début de mot, sans tenir compte des accents) et par fourchette de prix")
+    @GetMapping("/produits/search")
+    public List<Produit> search(
+            @McpToolParam(description = "Mots recherchés dans le nom du produit", required = false) @RequestParam(required = false) String q,
+            @McpToolParam(description = "Prix minimum", required = false) @RequestParam(required = false) Double minPrix,
+            @McpToolParam(description = "Prix maximum", required = false) @RequestParam(required = false) Double maxPrix,
+            @McpToolParam(description = "Tri : nom, -nom, prix, -prix ou id", required = false) @RequestParam(required = false) String sort,
+            @McpToolParam(description = "Nombre maximum de résultats (50 par défaut)", required = false) @RequestParam(required = false) Integer limit) {
+        int max = limit == null || limit <= 0 ? 50 : Math.min(limit, 500);
+        return produitCatalog.snapshot().search(q, minPrix, maxPrix, sort, max);
+    }
+
+    // One round trip for callers that need several products (e.g. every line of an order): ids=1,2,3
+    @GetMapping("/produits/batch")
+    public ProduitBatch batch(@RequestParam List<Long> ids) {
+        if (ids.size() > 1000) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "1000 ids maximum par requête");
+        }
+        return produitCatalog.snapshot().getAll(ids);
+    }
+
+    // Long-poll: answers as soon as something changed after "since", or empty after "timeout" ms
+    @GetMapping("/produits/changes")
+    public DeferredResult<ChangeFeed.Batch> changes(@RequestParam long since,
+                                                    @RequestParam(required = false) String epoch,
+                                                    @RequestParam(defaultValue = "500") int limit,
+                                                    @RequestParam(defaultValue = "30000") long timeout) {
+        return changeFeed.poll(changeFeed.positionOf(epoch, since), Math.max(1, Math.min(limit, 5000)),
+                Math.max(1, Math.min(timeout, 60000)));
+    }
+
+    // Same feed as Server-Sent Events; a reconnecting EventSource resumes from Last-Event-ID
+    @GetMapping(value = "/produits/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter changeStream(@RequestParam(required = false) Long since,
+                                   @RequestParam(required = false) String epoch,
+                                   @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        Long resumeFrom = changeFeed.positionOfEventId(lastEventId);
+        long from = resumeFrom != null ? resumeFrom
+                : since != null ? changeFeed.positionOf(epoch, since) : changeFeed.version();
+        return changeFeed.subscribe(from, 30 * 60 * 1000L);
     }
 
     @McpTool(name = "getProduct", description = "Récupère un produit via son ID")
     @GetMapping("/produits/{id}")
     public Produit get(@McpToolParam(description = "ID du produit") @PathVariable long id) {
-        return produitRepository.findById(id).get();
+        Produit produit = produitCatalog.snapshot().get(id);
+        if (produit == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Produit " + id + " introuvable");
+        }
+        return produit;
     }
 
     @McpTool(name = "createProduct", description = "Crée un nouveau produit avec un nom et un prix")
@@ -32,15 +134,20 @@ public class ProduitController {
     public Produit create(
             @McpToolParam(description = "Nom du produit") @RequestParam String nom,
             @McpToolParam(description = "Prix du produit") @RequestParam double prix) {
-        Produit produit = new Produit();
-        produit.setNom(nom);
-        produit.setPrix(prix);
-        return produitRepository.save(produit);
+        return produitCatalog.create(nom, prix);
     }
+    // CSV (nom,prix or id,nom,prix) or NDJSON; answers with NDJSON progress and error lines as the import runs
+    @PostMapping(value = "/produits/import", consumes = {"text/csv", "application/x-ndjson"})
+    public void importProduits(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean csv = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.valueOf("text/csv"));
+        response.setContentType("application/x-ndjson");
+        produitImporter.importProduits(request.getInputStream(), csv, response.getOutputStream());
+    }
+
     @McpTool(name = "deleteProduct", description = "Supprime un produit via son ID")
     @DeleteMapping("/produits/{id}")
     public void delete(@McpToolParam(description = "ID du produit") @PathVariable long id) {
-        produitRepository.deleteById(id);
+        produitCatalog.delete(id);
         System.out.println("Produit supprimé avec l'ID : " + id);
     }
 
@@ -50,9 +157,23 @@ public class ProduitController {
             @McpToolParam(description = "ID du produit") @PathVariable long id,
             @McpToolParam(description = "Nouveau nom du produit") @RequestParam String nom,
             @McpToolParam(description = "Nouveau prix du produit") @RequestParam double prix) {
-        Produit produit = produitRepository.findById(id).get();
-        produit.setNom(nom);
-        produit.setPrix(prix);
-        return produitRepository.save(produit);
+        Produit produit = produitCatalog.update(id, nom, prix);
+        if (produit == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Produit " + id + " introuvable");
+        }
+        return produit;
+    }
+
+    // The id is always kept: it is the cursor
+    private static Map<String, Object> project(Produit produit, List<String> fields) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", produit.getId());
+        if (fields.contains("nom")) {
+            row.put("nom", produit.getNom());
+        }
+        if (fields.contains("prix")) {
+            row.put("prix", produit.getPrix());
+        }
+        return row;
     }
 }
@@ -0,0 +1,59 @@
+package com.example.demo.controller;
+
+import com.example.demo.stock.StockReservationEngine;
+import com.example.demo.stock.StockReservationEngine.Reservation;
+import com.example.demo.stock.StockReservationEngine.StockLevel;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import org.springaicommunity.mcp.annotation.McpTool;
+import org.springaicommunity.mcp.annotation.McpToolParam;
+
+@AllArgsConstructor
+@RestController
+public class StockController {
+    private StockReservationEngine stockReservationEngine;
+
+    @McpTool(name = "getProductStock", description = "Récupère le stock disponible et réservé d'un produit")
+    @GetMapping("/produits/{id}/stock")
+    public StockLevel stock(@McpToolParam(description = "ID du produit") @PathVariable long id) {
+        return stockReservationEngine.level(id);
+    }
+
+    @PutMapping("/produits/{id}/stock")
+    public StockLevel setStock(@PathVariable long id, @RequestParam long quantite) {
+        if (quantite < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La quantité ne peut pas être négative");
+        }
+        return stockReservationEngine.setAvailable(id, quantite);
+    }
+
+    // 409 when the stock is insufficient; the reservation must be confirmed or released before it expires
+    @PostMapping("/reservations")
+    @ResponseStatus(HttpStatus.CREATED)
+    public Reservation reserve(@RequestParam long produitId, @RequestParam long quantite) {
+        if (quantite <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La quantité doit être positive");
+        }
+        return stockReservationEngine.reserve(produitId, quantite);
+    }
+
+    @PostMapping("/reservations/{id}/confirm")
+    public Reservation confirm(@PathVariable String id) {
+        return found(stockReservationEngine.confirm(id), id);
+    }
+
+    @DeleteMapping("/reservations/{id}")
+    public Reservation release(@PathVariable String id) {
+        return found(stockReservationEngine.release(id), id);
+    }
+
+    private static Reservation found(Reservation reservation, String id) {
+        if (reservation == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Réservation " + id + " inconnue, expirée ou déjà terminée");
+        }
+        return reservation;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.demo.produits;
+
+import java.util.List;
+
+/** Answer to a lookup of several ids: the products found, and the requested ids that do not exist. */
+public record ProduitBatch(List<Produit> produits, List<Long> missing) {
+}
@@ -0,0 +1,24 @@
+package com.example.demo.produits;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Last flushed stock level of a product. The live values are in memory (StockReservationEngine);
+ * this row is written behind them. {@code reserve} is the quantity held by open reservations at the
+ * time of the flush: after a restart it is considered sold, since those reservations may have been
+ * confirmed after the last flush.
+ */
+@Data
+@AllArgsConstructor
+@Entity
+@NoArgsConstructor
+public class ProduitStock {
+    @Id
+    private Long produitId;
+    private long disponible;
+    private long reserve;
+}
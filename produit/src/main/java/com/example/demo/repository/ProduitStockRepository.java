@@ -0,0 +1,7 @@
+package com.example.demo.repository;
+
+import com.example.demo.produits.ProduitStock;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ProduitStockRepository extends JpaRepository<ProduitStock, Long> {
+}
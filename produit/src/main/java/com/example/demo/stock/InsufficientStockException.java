@@ -0,0 +1,11 @@
+package com.example.demo.stock;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class InsufficientStockException extends RuntimeException {
+    public InsufficientStockException(long produitId, long demande, long disponible) {
+        super("Stock insuffisant pour le produit " + produitId + " : " + demande + " demandé(s), " + disponible + " disponible(s)");
+    }
+}
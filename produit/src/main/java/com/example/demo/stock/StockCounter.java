@@ -0,0 +1,117 @@
+package com.example.demo.stock;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Available units of one product, split across shards so that concurrent reservations of the same
+ * product mostly CAS different cache lines. A shard never goes below zero, so the sum of the shards
+ * never does either: stock cannot be oversold, whatever the interleaving.
+ * <p>
+ * The price of sharding is that a request can fail while the units it needs are briefly held by a
+ * concurrent multi-shard take that is about to give them back.
+ */
+final class StockCounter {
+
+    // Longs per shard: each shard gets its own 64-byte cache line
+    private static final int PAD = 8;
+
+    private final AtomicLongArray cells;
+    private final int shards;
+    private final AtomicLong reserved = new AtomicLong();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    StockCounter(long available, int shards) {
+        this.shards = shards;
+        this.cells = new AtomicLongArray(shards * PAD);
+        for (int i = 0; i < shards; i++) {
+            cells.set(i * PAD, available / shards + (i < available % shards ? 1 : 0));
+        }
+    }
+
+    long available() {
+        long sum = 0;
+        for (int i = 0; i < shards; i++) {
+            sum += cells.get(i * PAD);
+        }
+        return sum;
+    }
+
+    long reserved() {
+        return reserved.get();
+    }
+
+    /** Takes {@code quantity} units, or nothing at all. */
+    boolean tryTake(long quantity) {
+        int start = ThreadLocalRandom.current().nextInt(shards);
+        // Fast path: one shard has enough
+        for (int i = 0; i < shards; i++) {
+            int cell = ((start + i) % shards) * PAD;
+            long current;
+            while ((current = cells.get(cell)) >= quantity) {
+                if (cells.compareAndSet(cell, current, current - quantity)) {
+                    return true;
+                }
+            }
+        }
+        // Low stock: collect from several shards, and put everything back if the total falls short
+        long[] takenFrom = new long[shards];
+        long taken = 0;
+        for (int i = 0; i < shards && taken < quantity; i++) {
+            int shard = (start + i) % shards;
+            int cell = shard * PAD;
+            long current;
+            while (taken < quantity && (current = cells.get(cell)) > 0) {
+                long part = Math.min(current, quantity - taken);
+                if (cells.compareAndSet(cell, current, current - part)) {
+                    takenFrom[shard] += part;
+                    taken += part;
+                }
+            }
+        }
+        if (taken == quantity) {
+            return true;
+        }
+        for (int shard = 0; shard < shards; shard++) {
+            if (takenFrom[shard] > 0) {
+                cells.addAndGet(shard * PAD, takenFrom[shard]);
+            }
+        }
+        return false;
+    }
+
+    /** Takes up to {@code quantity} units and returns how many were taken. */
+    long takeUpTo(long quantity) {
+        long taken = 0;
+        for (int shard = 0; shard < shards && taken < quantity; shard++) {
+            int cell = shard * PAD;
+            long current;
+            while (taken < quantity && (current = cells.get(cell)) > 0) {
+                long part = Math.min(current, quantity - taken);
+                if (cells.compareAndSet(cell, current, current - part)) {
+                    taken += part;
+                }
+            }
+        }
+        return taken;
+    }
+
+    void put(long quantity) {
+        cells.addAndGet(ThreadLocalRandom.current().nextInt(shards) * PAD, quantity);
+    }
+
+    void addReserved(long quantity) {
+        reserved.addAndGet(quantity);
+    }
+
+    void markDirty() {
+        dirty.set(true);
+    }
+
+    /** Clears the dirty flag; true if the counter changed since the last call. */
+    boolean takeDirty() {
+        return dirty.getAndSet(false);
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.demo.stock;
+
+import com.example.demo.catalog.ProduitCatalog;
+import com.example.demo.produits.ProduitStock;
+import com.example.demo.repository.ProduitStockRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stock levels and reservations, held in memory and written behind to {@code produit_stock}.
+ * Reserving is a CAS on a sharded counter: no row lock, no database round trip on the hot path.
+ * <p>
+ * A reservation ends exactly once, by confirmation, release or expiry: whichever removes it from the
+ * map owns the transition. The counters are local to this instance, so stock must be managed by a
+ * single produit-service instance. A counter is only created for a product of the catalog, so unknown
+ * ids cannot make the map grow.
+ */
+@Service
+public class StockReservationEngine {
+
+    private final ProduitStockRepository produitStockRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ProduitCatalog produitCatalog;
+    private final int shards;
+    private final Duration reservationTtl;
+
+    private final Map<Long, StockCounter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Reservation> reservations = new ConcurrentHashMap<>();
+
+    private final Counter reservedCount;
+    private final Counter rejectedCount;
+
+    public StockReservationEngine(ProduitStockRepository produitStockRepository, JdbcTemplate jdbcTemplate,
+                                  ProduitCatalog produitCatalog,
+                                  @Value("${stock.shards:0}") int shards,
+                                  @Value("${stock.reservation-ttl:10m}") Duration reservationTtl,
+                                  MeterRegistry meterRegistry) {
+        this.produitStockRepository = produitStockRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.produitCatalog = produitCatalog;
+        this.shards = shards > 0 ? shards : Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2);
+        this.reservationTtl = reservationTtl;
+
+        this.reservedCount = meterRegistry.counter("stock.reservations", "result", "reserved");
+        this.rejectedCount = meterRegistry.counter("stock.reservations", "result", "insufficient");
+        Gauge.builder("stock.reservations.open", reservations, Map::size).register(meterRegistry);
+    }
+
+    public Reservation reserve(long produitId, long quantite) {
+        if (quantite <= 0) {
+            throw new IllegalArgumentException("La quantité doit être positive");
+        }
+        StockCounter counter = counter(produitId);
+        if (!counter.tryTake(quantite)) {
+            rejectedCount.increment();
+            throw new InsufficientStockException(produitId, quantite, counter.available());
+        }
+        counter.addReserved(quantite);
+        counter.markDirty();
+        Reservation reservation = new Reservation(UUID.randomUUID().toString(), produitId, quantite,
+                Instant.now().plus(reservationTtl));
+        reservations.put(reservation.id(), reservation);
+        reservedCount.increment();
+        return reservation;
+    }
+
+    /** The reserved units are sold. Returns null if the reservation is unknown, expired or already ended. */
+    public Reservation confirm(String reservationId) {
+        Reservation reservation = reservations.remove(reservationId);
+        if (reservation != null) {
+            StockCounter counter = counter(reservation.produitId());
+            counter.addReserved(-reservation.quantite());
+            counter.markDirty();
+        }
+        return reservation;
+    }
+
+    /** The reserved units go back to the available stock. Returns null if there was nothing to release. */
+    public Reservation release(String reservationId) {
+        Reservation reservation = reservations.remove(reservationId);
+        if (reservation != null) {
+            giveBack(reservation);
+        }
+        return reservation;
+    }
+
+    /**
+     * Sets the available quantity (restocking, inventory). Reservations in progress are not affected;
+     * when lowering the stock, units reserved concurrently are simply no longer available to remove.
+     */
+    public StockLevel setAvailable(long produitId, long disponible) {
+        StockCounter counter = counter(produitId);
+        long delta = disponible - counter.available();
+        if (delta > 0) {
+            counter.put(delta);
+        } else if (delta < 0) {
+            counter.takeUpTo(-delta);
+        }
+        counter.markDirty();
+        return level(produitId);
+    }
+
+    public StockLevel level(long produitId) {
+        StockCounter counter = counter(produitId);
+        return new StockLevel(produitId, counter.available(), counter.reserved());
+    }
+
+    @Scheduled(fixedDelayString = "${stock.expiry-check-ms:10000}")
+    public void expireReservations() {
+        Instant now = Instant.now();
+        reservations.values().forEach(reservation -> {
+            if (reservation.expiresAt().isBefore(now) && reservations.remove(reservation.id(), reservation)) {
+                giveBack(reservation);
+            }
+        });
+    }
+
+    // Write-behind: one batched upsert of the products that changed since the previous flush
+    @Scheduled(fixedDelayString = "${stock.flush-interval-ms:1000}")
+    @PreDestroy
+    public void flush() {
+        List<Object[]> rows = new ArrayList<>();
+        counters.forEach((produitId, counter) -> {
+            if (counter.takeDirty()) {
+                rows.add(new Object[]{produitId, counter.available(), counter.reserved()});
+            }
+        });
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate("insert into produit_stock (produit_id, disponible, reserve) values (?, ?, ?) "
+                    + "on conflict (produit_id) do update set disponible = excluded.disponible, reserve = excluded.reserve", rows);
+        } catch (RuntimeException e) {
+            // Try again on the next flush
+            rows.forEach(row -> counters.get((Long) row[0]).markDirty());
+            throw e;
+        }
+    }
+
+    private void giveBack(Reservation reservation) {
+        StockCounter counter = counter(reservation.produitId());
+        counter.addReserved(-reservation.quantite());
+        counter.put(reservation.quantite());
+        counter.markDirty();
+    }
+
+    private StockCounter counter(long produitId) {
+        StockCounter counter = counters.get(produitId);
+        if (counter != null) {
+            return counter;
+        }
+        if (produitCatalog.snapshot().get(produitId) == null) {
+            throw new UnknownProduitException(produitId);
+        }
+        // First use of this product since startup: the database is read once, then never again
+        return counters.computeIfAbsent(produitId, id -> new StockCounter(
+                produitStockRepository.findById(id).map(ProduitStock::getDisponible).orElse(0L), shards));
+    }
+
+    public record Reservation(String id, long produitId, long quantite, Instant expiresAt) {
+    }
+
+    public record StockLevel(long produitId, long disponible, long reserve) {
+    }
+}
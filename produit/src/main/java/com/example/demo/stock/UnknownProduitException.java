@@ -0,0 +1,11 @@
+package com.example.demo.stock;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class UnknownProduitException extends RuntimeException {
+    public UnknownProduitException(long produitId) {
+        super("Produit " + produitId + " introuvable");
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.demo.catalog;
+
+import com.example.demo.produits.Produit;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CatalogIndexTests {
+
+    private final CatalogIndex index = new CatalogIndex(new Produit[]{
+            new Produit(1, "Ordinateur Portable", 899.99),
+            new Produit(2, "Souris Sans Fil", 29.99),
+            new Produit(3, "Clavier Mécanique", 149.99),
+            new Produit(4, "Écran 27 pouces", 299.99),
+            new Produit(5, "Casque Audio", 79.99)
+    });
+
+    @Test
+    void matchesWordPrefixesIgnoringCaseAndAccents() {
+        assertEquals(List.of(4L), ids(index.search("ECR", null, null, CatalogIndex.Sort.ID, 10)));
+        assertEquals(List.of(3L), ids(index.search("mecan clav", null, null, CatalogIndex.Sort.ID, 10)));
+        assertEquals(List.of(), ids(index.search("ouris", null, null, CatalogIndex.Sort.ID, 10)));
+    }
+
+    @Test
+    void filtersByPriceRangeAndSorts() {
+        assertEquals(List.of(4L, 3L, 5L),
+                ids(index.search(null, 79.99, 299.99, CatalogIndex.Sort.PRIX_DESC, 10)));
+        assertEquals(List.of(5L, 3L),
+                ids(index.search(null, null, 200.0, CatalogIndex.Sort.NOM, 2)));
+    }
+
+    private static List<Long> ids(List<Produit> produits) {
+        return produits.stream().map(Produit::getId).toList();
+    }
+}
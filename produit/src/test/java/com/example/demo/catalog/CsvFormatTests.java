@@ -0,0 +1,83 @@
+package com.example.demo.catalog;
+
+import com.example.demo.catalog.ProduitImporter.CsvFormat;
+import com.example.demo.catalog.ProduitImporter.Row;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvFormatTests {
+
+    @Test
+    void detectsHeaderInAnyOrder() {
+        CsvFormat format = CsvFormat.detect("prix,id,nom");
+        assertTrue(format.hasHeader());
+
+        Row row = format.parse(2, "12.5,7,Souris");
+        assertEquals(7L, row.id);
+        assertEquals("Souris", row.nom);
+        assertEquals(12.5, row.prix);
+    }
+
+    @Test
+    void headerIsMatchedWhateverItsCase() {
+        CsvFormat format = CsvFormat.detect("\uFEFFId; Nom ;PRIX");
+        assertTrue(format.hasHeader());
+
+        Row row = format.parse(2, "3;Souris;12,5");
+        assertEquals(3L, row.id);
+        assertEquals("Souris", row.nom);
+        assertEquals(12.5, row.prix);
+    }
+
+    @Test
+    void headerWithoutIdCreatesOrUpdatesByName() {
+        Row row = CsvFormat.detect("nom,prix").parse(2, "Clavier,49.9");
+        assertNull(row.id);
+        assertEquals("Clavier", row.nom);
+    }
+
+    @Test
+    void withoutHeaderColumnsAreNomThenPrix() {
+        CsvFormat format = CsvFormat.detect("Casque Audio,79.99");
+        assertFalse(format.hasHeader());
+
+        Row row = format.parse(1, "Casque Audio,79.99");
+        assertEquals("Casque Audio", row.nom);
+        assertEquals(79.99, row.prix);
+    }
+
+    @Test
+    void semicolonSeparatorMeansDecimalComma() {
+        CsvFormat format = CsvFormat.detect("nom;prix");
+        assertEquals(';', format.separator());
+
+        Row row = format.parse(2, "Écran 27 pouces;299,99");
+        assertEquals("Écran 27 pouces", row.nom);
+        assertEquals(299.99, row.prix);
+    }
+
+    @Test
+    void quotedFieldsKeepSeparatorsAndEscapedQuotes() {
+        assertEquals(List.of("Câble \"USB-C\", 2 m", "9.99"), CsvFormat.split("\"Câble \"\"USB-C\"\", 2 m\",9.99", ','));
+
+        Row row = CsvFormat.detect("nom;prix").parse(2, "\"Lot; 3 stylos\";4,50");
+        assertEquals("Lot; 3 stylos", row.nom);
+        assertEquals(4.5, row.prix);
+    }
+
+    @Test
+    void rejectsInvalidRows() {
+        CsvFormat format = CsvFormat.detect("nom,prix");
+        assertThrows(IllegalArgumentException.class, () -> format.parse(2, "Souris"));
+        assertThrows(IllegalArgumentException.class, () -> format.parse(3, "Souris,abc"));
+        assertThrows(IllegalArgumentException.class, () -> format.parse(4, ",10"));
+        assertThrows(IllegalArgumentException.class, () -> format.parse(5, "Souris,-1"));
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.demo.stock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Many threads fighting over one hot product: the stock must never be oversold. */
+class StockCounterStressTests {
+
+    private static final int THREADS = 32;
+    private static final long STOCK = 10_000;
+
+    @Test
+    void neverSellsMoreThanTheStock() throws Exception {
+        StockCounter counter = new StockCounter(STOCK, 8);
+
+        List<Long> sold = run(() -> {
+            long taken = 0;
+            int failures = 0;
+            while (failures < 1000) {
+                long quantity = ThreadLocalRandom.current().nextLong(1, 4);
+                if (counter.tryTake(quantity)) {
+                    taken += quantity;
+                } else {
+                    failures++;
+                }
+            }
+            return taken;
+        });
+
+        long total = sold.stream().mapToLong(Long::longValue).sum();
+        assertTrue(total <= STOCK, () -> "oversold: " + total);
+        assertEquals(STOCK, total + counter.available());
+        assertTrue(counter.available() < 3, () -> "units left unsold: " + counter.available());
+    }
+
+    @Test
+    void conservesUnitsUnderReserveAndRelease() throws Exception {
+        StockCounter counter = new StockCounter(STOCK, 8);
+
+        List<Long> held = run(() -> {
+            long holding = 0;
+            for (int i = 0; i < 200_000; i++) {
+                long quantity = ThreadLocalRandom.current().nextLong(1, 50);
+                if (ThreadLocalRandom.current().nextBoolean() && counter.tryTake(quantity)) {
+                    holding += quantity;
+                } else if (holding > 0) {
+                    long back = Math.min(holding, quantity);
+                    counter.put(back);
+                    holding -= back;
+                }
+                assertTrue(counter.available() >= 0);
+            }
+            return holding;
+        });
+
+        assertEquals(STOCK, held.stream().mapToLong(Long::longValue).sum() + counter.available());
+    }
+
+    private static List<Long> run(java.util.concurrent.Callable<Long> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+        List<Long> results = new ArrayList<>();
+        for (Future<Long> future : futures) {
+            results.add(future.get(60, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        return results;
+    }
+}